@@ -0,0 +1,91 @@
+package net.sf.classifier4J.benchmark;
+
+import java.util.Random;
+
+/**
+ * Deterministic text used by the benchmarks. Chat sized inputs resemble a single MUC message,
+ * document sized inputs resemble a pasted article or a link preview.
+ */
+public final class BenchmarkInputs {
+
+    public static final String CHAT = "chat";
+    public static final String DOCUMENT = "document";
+
+    private static final String[] WORDS = {
+            "the", "a", "and", "to", "of", "in", "is", "it", "you", "that", "for", "on", "with", "this", "are", "be",
+            "have", "not", "but", "what", "all", "when", "there", "can", "just", "like", "about", "would", "some", "them",
+            "server", "client", "room", "message", "update", "build", "kernel", "patch", "device", "android", "release",
+            "security", "privacy", "browser", "firefox", "chromium", "signal", "xmpp", "conversations", "gradle", "java",
+            "linux", "fedora", "debian", "arch", "network", "firewall", "vpn", "router", "firmware", "bootloader",
+            "unlock", "flash", "recovery", "backup", "storage", "battery", "camera", "bluetooth", "wifi", "modem",
+            "free", "crypto", "bitcoin", "invest", "profit", "guaranteed", "click", "link", "offer", "limited", "bonus",
+            "earn", "daily", "returns", "telegram", "contact", "admin", "wallet", "trading", "signals", "join", "now",
+            "thanks", "anyone", "know", "working", "broken", "issue", "fixed", "try", "again", "later", "maybe",
+            "think", "should", "could", "problem", "question", "answer", "help", "please", "sorry", "today", "yesterday"
+    };
+
+    private static final String[] SPAM = {
+            "Earn guaranteed daily returns trading crypto signals, contact admin on telegram now",
+            "Limited bonus offer, invest in bitcoin today and earn profit, click the link to join",
+            "Free crypto wallet giveaway for the first members, contact the admin for your bonus",
+            "I made profit with this trading group, daily signals and guaranteed returns, join now"
+    };
+
+    private BenchmarkInputs() {
+    }
+
+    public static String text(String size) {
+        if (CHAT.equals(size)) {
+            return sentences(new Random(1), 1, 14);
+        } else if (DOCUMENT.equals(size)) {
+            return sentences(new Random(2), 60, 16);
+        }
+        throw new IllegalArgumentException("Unknown input size " + size);
+    }
+
+    public static String html(String size) {
+        Random random = new Random(3);
+        StringBuilder html = new StringBuilder("<html><head><title>Preview</title>");
+        html.append("<style>body { font-family: sans-serif; }</style>");
+        html.append("<script>var tracking = { id: 42 };</script></head><body>");
+        String[] paragraphs = text(size).split("\\. ");
+        for (int i = 0; i < paragraphs.length; i++) {
+            html.append("<p class=\"c").append(random.nextInt(10)).append("\">");
+            html.append(paragraphs[i].replace(" and ", " &amp; "));
+            html.append("&nbsp;<a href=\"https://example.org/").append(i).append("\">more</a></p>");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    public static String[] spamSamples() {
+        return SPAM.clone();
+    }
+
+    public static String[] hamSamples(int count) {
+        Random random = new Random(4);
+        String[] samples = new String[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = sentences(random, 1, 8 + random.nextInt(12));
+        }
+        return samples;
+    }
+
+    private static String sentences(Random random, int count, int wordsPerSentence) {
+        StringBuilder text = new StringBuilder();
+        for (int s = 0; s < count; s++) {
+            if (s > 0) {
+                text.append(' ');
+            }
+            for (int w = 0; w < wordsPerSentence; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                if (w == 0) {
+                    text.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                } else {
+                    text.append(' ').append(word);
+                }
+            }
+            text.append(random.nextInt(4) == 0 ? '?' : '.');
+        }
+        return text.toString();
+    }
+}
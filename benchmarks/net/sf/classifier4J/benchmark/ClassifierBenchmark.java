@@ -0,0 +1,89 @@
+package net.sf.classifier4J.benchmark;
+
+import net.sf.classifier4J.ClassifierException;
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.bayesian.BayesianClassifier;
+import net.sf.classifier4J.bayesian.MultinomialBayesianClassifier;
+import net.sf.classifier4J.regression.LogisticRegressionClassifier;
+import net.sf.classifier4J.vector.VectorClassifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    private static final int HAM_SAMPLES = 5000;
+
+    @Param({BenchmarkInputs.CHAT, BenchmarkInputs.DOCUMENT})
+    public String size;
+
+    private String text;
+    private BayesianClassifier bc;
+    private VectorClassifier vc;
+    private MultinomialBayesianClassifier nb;
+    private LogisticRegressionClassifier lr;
+
+    @Setup
+    public void setup() throws ClassifierException {
+        text = BenchmarkInputs.text(size);
+        bc = new BayesianClassifier();
+        vc = new VectorClassifier();
+        nb = new MultinomialBayesianClassifier(new FeatureHasher(18));
+        lr = new LogisticRegressionClassifier(new FeatureHasher(18));
+        for (String spam : BenchmarkInputs.spamSamples()) {
+            bc.teachMatch(spam);
+            vc.teachMatch(spam);
+            nb.teachMatch(spam);
+            lr.teachMatch(spam);
+        }
+        for (String ham : BenchmarkInputs.hamSamples(HAM_SAMPLES)) {
+            bc.teachNonMatch(ham);
+            nb.teachNonMatch(ham);
+            lr.teachNonMatch(ham);
+        }
+    }
+
+    @Benchmark
+    public double bayesianClassify() throws ClassifierException {
+        return bc.classify(text);
+    }
+
+    @Benchmark
+    public BayesianClassifier bayesianTeachMatch() throws ClassifierException {
+        bc.teachMatch(text);
+        return bc;
+    }
+
+    @Benchmark
+    public double multinomialClassify() throws ClassifierException {
+        return nb.classify(text);
+    }
+
+    @Benchmark
+    public MultinomialBayesianClassifier multinomialTeachMatch() throws ClassifierException {
+        nb.teachMatch(text);
+        return nb;
+    }
+
+    @Benchmark
+    public double logisticClassify() throws ClassifierException {
+        return lr.classify(text);
+    }
+
+    @Benchmark
+    public LogisticRegressionClassifier logisticTeachMatch() throws ClassifierException {
+        lr.teachMatch(text);
+        return lr;
+    }
+
+    @Benchmark
+    public double vectorClassify() throws ClassifierException {
+        return vc.classify(text);
+    }
+}
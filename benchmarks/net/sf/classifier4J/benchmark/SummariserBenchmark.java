@@ -0,0 +1,32 @@
+package net.sf.classifier4J.benchmark;
+
+import net.sf.classifier4J.summariser.SimpleSummariser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SummariserBenchmark {
+
+    @Param({BenchmarkInputs.CHAT, BenchmarkInputs.DOCUMENT})
+    public String size;
+
+    private String text;
+    private SimpleSummariser summariser;
+
+    @Setup
+    public void setup() {
+        text = BenchmarkInputs.text(size);
+        summariser = new SimpleSummariser();
+    }
+
+    @Benchmark
+    public String summarise() {
+        return summariser.summarise(text, 3);
+    }
+}
@@ -0,0 +1,55 @@
+package net.sf.classifier4J.benchmark;
+
+import net.sf.classifier4J.DefaultTokenizer;
+import net.sf.classifier4J.SimpleHTMLTokenizer;
+import net.sf.classifier4J.Utilities;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+    @Param({BenchmarkInputs.CHAT, BenchmarkInputs.DOCUMENT})
+    public String size;
+
+    private String text;
+    private String html;
+    private DefaultTokenizer defaultTokenizer;
+    private SimpleHTMLTokenizer htmlTokenizer;
+
+    @Setup
+    public void setup() {
+        text = BenchmarkInputs.text(size);
+        html = BenchmarkInputs.html(size);
+        defaultTokenizer = new DefaultTokenizer();
+        htmlTokenizer = new SimpleHTMLTokenizer();
+    }
+
+    @Benchmark
+    public String[] defaultTokenize() {
+        return defaultTokenizer.tokenize(text);
+    }
+
+    @Benchmark
+    public void defaultTokenizeSpans(Blackhole blackhole) {
+        defaultTokenizer.tokenize(text, (chars, start, end) -> blackhole.consume(end - start));
+    }
+
+    @Benchmark
+    public String[] htmlTokenize() {
+        return htmlTokenizer.tokenize(html);
+    }
+
+    @Benchmark
+    public Map wordFrequency() {
+        return Utilities.getWordFrequency(text);
+    }
+}
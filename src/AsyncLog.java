@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured log writer that keeps terminal and pipe I/O off the calling thread.
+ * Logging an event claims a slot in a fixed size ring buffer, formatting and writing happen in batches
+ * on a background flusher. When the ring is full the event is dropped and counted rather than blocking.
+ * <p>
+ * Events are written as text ("[TAG] message key=value ...") or, with -Dbayebot.logFormat=json, as JSON lines.
+ * Each level can be sampled with -Dbayebot.logSample.LEVEL=rate, e.g. -Dbayebot.logSample.DEBUG=0.01 keeps
+ * one percent of the per message score lines.
+ */
+public final class AsyncLog {
+
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARN
+    }
+
+    private static final class Event {
+        private final long time;
+        private final Level level;
+        private final String tag;
+        private final String message;
+        private final Object[] fields;
+
+        private Event(long time, Level level, String tag, String message, Object[] fields) {
+            this.time = time;
+            this.level = level;
+            this.tag = tag;
+            this.message = message;
+            this.fields = fields;
+        }
+    }
+
+    private static final long IDLE_PARK = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final int mask;
+    private final AtomicReferenceArray<Event> ring;
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final double[] sampleRates = new double[Level.values().length];
+    private final boolean json;
+    private volatile PrintStream out;
+
+    /**
+     * @param capacity number of events the ring holds, rounded up to a power of two
+     */
+    public AsyncLog(PrintStream out, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.out = out;
+        this.json = "json".equalsIgnoreCase(System.getProperty("bayebot.logFormat"));
+        for (Level level : Level.values()) {
+            sampleRates[level.ordinal()] = 1;
+        }
+
+        Thread flusher = new Thread(this::drainForever, "log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "log-shutdown"));
+
+        // parsed once the log works, so a malformed rate is reported instead of failing whoever creates the log
+        for (Level level : Level.values()) {
+            String property = "bayebot.logSample." + level;
+            String value = System.getProperty(property);
+            if (value != null) {
+                try {
+                    double rate = Double.parseDouble(value);
+                    if (Double.isNaN(rate)) {
+                        throw new NumberFormatException("NaN");
+                    }
+                    sampleRates[level.ordinal()] = rate;
+                } catch (NumberFormatException e) {
+                    log(Level.WARN, "LOG", "Ignoring invalid sample rate, keeping every event", "property", property, "value", value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param fields alternating keys and values
+     */
+    public void log(Level level, String tag, String message, Object... fields) {
+        double rate = sampleRates[level.ordinal()];
+        if (rate < 1 && (rate <= 0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            return;
+        }
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head.get() > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        ring.lazySet(slot, new Event(System.currentTimeMillis(), level, tag, message, fields));
+        published.set(slot, sequence);
+    }
+
+    /**
+     * @return the number of events waiting to be written
+     */
+    public long getDepth() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public void setOutput(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Blocks until every event logged before this call has been written.
+     */
+    public void flush() {
+        long target = tail.get();
+        while (head.get() < target) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    private void drainForever() {
+        StringBuilder batch = new StringBuilder(8192);
+        while (true) {
+            long position = head.get();
+            long end = tail.get();
+            while (position < end) {
+                int slot = (int) position & mask;
+                if (published.get(slot) != position) {
+                    // claimed but not yet written by its producer
+                    break;
+                }
+                Event event = ring.get(slot);
+                ring.lazySet(slot, null);
+                format(event, batch);
+                position++;
+            }
+            if (batch.length() > 0) {
+                PrintStream target = out;
+                target.print(batch);
+                target.flush();
+                batch.setLength(0);
+            }
+            if (position != head.get()) {
+                head.set(position);
+            } else {
+                LockSupport.parkNanos(IDLE_PARK);
+            }
+        }
+    }
+
+    private void format(Event event, StringBuilder line) {
+        if (json) {
+            line.append("{\"time\":").append(event.time);
+            line.append(",\"level\":\"").append(event.level).append('"');
+            line.append(",\"tag\":");
+            appendJsonString(line, event.tag);
+            line.append(",\"message\":");
+            appendJsonString(line, event.message);
+            for (int i = 0; i + 1 < event.fields.length; i += 2) {
+                line.append(',');
+                appendJsonString(line, String.valueOf(event.fields[i]));
+                line.append(':');
+                Object value = event.fields[i + 1];
+                if (value instanceof Number || value instanceof Boolean) {
+                    line.append(value);
+                } else {
+                    appendJsonString(line, String.valueOf(value));
+                }
+            }
+            line.append("}\n");
+        } else {
+            line.append('[').append(event.tag).append("] ").append(event.message);
+            for (int i = 0; i + 1 < event.fields.length; i += 2) {
+                line.append(' ').append(event.fields[i]).append('=').append(event.fields[i + 1]);
+            }
+            line.append('\n');
+        }
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    line.append("\\\"");
+                    break;
+                case '\\':
+                    line.append("\\\\");
+                    break;
+                case '\n':
+                    line.append("\\n");
+                    break;
+                case '\r':
+                    line.append("\\r");
+                    break;
+                case '\t':
+                    line.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
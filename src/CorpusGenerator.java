@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Writes a deterministic synthetic config directory for scale testing without private data.
+ * <p>
+ * Usage: java -cp bayebot.jar CorpusGenerator &lt;output directory&gt; [key=value ...]
+ * <p>
+ * Words are drawn from a Zipf distributed vocabulary of pronounceable nonsense words. Spam mixes in
+ * its own small vocabulary, and every user has a style profile of favourite words, message length and
+ * punctuation so the identifier has something to tell apart. The same seed always produces the same files.
+ * Besides the corpora in the layout {@link Main} expects, a chat log for {@link Replay} is written to Replay.tsv.
+ */
+public final class CorpusGenerator {
+
+    private static final String[] ONSETS = {"b", "c", "d", "f", "g", "h", "j", "k", "l", "m", "n", "p", "r", "s", "t", "v", "w", "z", "br", "ch", "cl", "dr", "gr", "pl", "sh", "st", "th", "tr"};
+    private static final String[] VOWELS = {"a", "e", "i", "o", "u", "ai", "ea", "ee", "oo", "ou"};
+    private static final String[] CODAS = {"", "", "", "n", "r", "s", "t", "l", "m", "ck", "nd", "st"};
+    private static final String[] ENDINGS = {".", ".", ".", "?", "!", "", "..."};
+    // Replay traffic is drawn from the first users only, so the styles kept in memory stay bounded
+    private static final int REPLAY_USERS = 10000;
+
+    private final Random random;
+    private final String[] vocabulary;
+    private final double[] zipf;
+    private final String[] spamVocabulary;
+
+    private CorpusGenerator(long seed, int vocabularySize, double exponent) {
+        random = new Random(seed);
+        vocabulary = words(vocabularySize);
+        zipf = cumulativeZipf(vocabularySize, exponent);
+        spamVocabulary = words(Math.max(50, vocabularySize / 200));
+    }
+
+    /**
+     * A user's writing habits, derived from its own seed.
+     */
+    private final class Style {
+        private final int[] favourites;
+        private final double favouriteRate;
+        private final int meanLength;
+        private final String ending;
+        private final boolean capitalise;
+
+        private Style(Random userRandom) {
+            favourites = new int[20 + userRandom.nextInt(40)];
+            for (int i = 0; i < favourites.length; i++) {
+                favourites[i] = zipfIndex(userRandom);
+            }
+            favouriteRate = 0.2 + userRandom.nextDouble() * 0.4;
+            meanLength = 6 + userRandom.nextInt(14);
+            ending = ENDINGS[userRandom.nextInt(ENDINGS.length)];
+            capitalise = userRandom.nextBoolean();
+        }
+
+        private String message(Random messageRandom) {
+            int length = Math.max(5, meanLength + (int) (messageRandom.nextGaussian() * 3));
+            StringBuilder message = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                String word = messageRandom.nextDouble() < favouriteRate
+                        ? vocabulary[favourites[messageRandom.nextInt(favourites.length)]]
+                        : vocabulary[zipfIndex(messageRandom)];
+                append(message, word, i == 0 && capitalise);
+            }
+            return message.append(ending).toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("[GENERATOR] Usage: CorpusGenerator <output directory> [users=1000] [spam=10000] [ham=10000] [userMessages=50] "
+                    + "[replay=100000] [spamRatio=0.1] [rooms=10] [vocabulary=50000] [zipf=1.1] [seed=1]");
+            System.exit(1);
+        }
+        Map<String, String> options = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] option = args[i].split("=", 2);
+            if (option.length != 2) {
+                System.out.println("[GENERATOR] Expected key=value but got " + args[i]);
+                System.exit(1);
+            }
+            options.put(option[0], option[1]);
+        }
+        int users = Integer.parseInt(option(options, "users", "1000"));
+        int spam = Integer.parseInt(option(options, "spam", "10000"));
+        int ham = Integer.parseInt(option(options, "ham", "10000"));
+        int userMessages = Integer.parseInt(option(options, "userMessages", "50"));
+        int replay = Integer.parseInt(option(options, "replay", "100000"));
+        double spamRatio = Double.parseDouble(option(options, "spamRatio", "0.1"));
+        int rooms = Integer.parseInt(option(options, "rooms", "10"));
+        int vocabularySize = Integer.parseInt(option(options, "vocabulary", "50000"));
+        double exponent = Double.parseDouble(option(options, "zipf", "1.1"));
+        long seed = Long.parseLong(option(options, "seed", "1"));
+
+        File output = new File(args[0]);
+        File userDirectory = new File(output, "Users");
+        if (!userDirectory.isDirectory() && !userDirectory.mkdirs()) {
+            throw new IOException("Unable to create " + userDirectory);
+        }
+
+        long start = System.nanoTime();
+        CorpusGenerator generator = new CorpusGenerator(seed, vocabularySize, exponent);
+        generator.writeLines(new File(output, "Messages-Spam.txt"), spam, true);
+        generator.writeLines(new File(output, "Messages-KnownGood.txt"), ham, false);
+        try (Writer out = writer(new File(output, "Rooms.txt"))) {
+            for (int i = 0; i < rooms; i++) {
+                out.write("room" + i + "@conference.example.org\n");
+            }
+        }
+        for (int user = 0; user < users; user++) {
+            Random userRandom = new Random(seed * 31 + user);
+            Style style = generator.new Style(userRandom);
+            try (Writer out = writer(new File(userDirectory, userName(user) + ".txt"))) {
+                for (int i = 0; i < userMessages; i++) {
+                    out.write(style.message(userRandom));
+                    out.write('\n');
+                }
+            }
+        }
+        generator.writeReplay(new File(output, "Replay.tsv"), replay, users, rooms, spamRatio, seed);
+        System.out.println("[GENERATOR] Wrote " + users + " users, " + spam + " spam, " + ham + " known good and " + replay
+                + " replay messages to " + output + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+    }
+
+    private void writeLines(File file, int count, boolean spam) throws IOException {
+        try (Writer out = writer(file)) {
+            for (int i = 0; i < count; i++) {
+                out.write(spam ? spamMessage(random) : hamMessage(random));
+                out.write('\n');
+            }
+        }
+    }
+
+    private void writeReplay(File file, int count, int users, int rooms, double spamRatio, long seed) throws IOException {
+        Random replayRandom = new Random(seed * 17);
+        Style[] styles = new Style[Math.min(users, REPLAY_USERS)];
+        long timestamp = 1600000000000L;
+        try (Writer out = writer(file)) {
+            for (int i = 0; i < count; i++) {
+                timestamp += 1 + (long) (-Math.log(1 - replayRandom.nextDouble()) * 2000);
+                String room = "room" + replayRandom.nextInt(Math.max(1, rooms)) + "@conference.example.org";
+                String nickname;
+                String body;
+                if (replayRandom.nextDouble() < spamRatio || styles.length == 0) {
+                    nickname = "spammer" + replayRandom.nextInt(1000);
+                    body = spamMessage(replayRandom);
+                } else {
+                    int user = replayRandom.nextInt(styles.length);
+                    if (styles[user] == null) {
+                        styles[user] = new Style(new Random(seed * 31 + user));
+                    }
+                    nickname = userName(user);
+                    body = styles[user].message(replayRandom);
+                }
+                out.write(timestamp + "\t" + room + "\t" + nickname + "\t" + body + "\n");
+            }
+        }
+    }
+
+    private String hamMessage(Random messageRandom) {
+        int length = 5 + messageRandom.nextInt(20);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            append(message, vocabulary[zipfIndex(messageRandom)], i == 0);
+        }
+        return message.append(ENDINGS[messageRandom.nextInt(ENDINGS.length)]).toString();
+    }
+
+    private String spamMessage(Random messageRandom) {
+        int length = 8 + messageRandom.nextInt(20);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            String word = messageRandom.nextDouble() < 0.5
+                    ? spamVocabulary[messageRandom.nextInt(spamVocabulary.length)]
+                    : vocabulary[zipfIndex(messageRandom)];
+            append(message, word, i == 0);
+        }
+        return message.append('!').toString();
+    }
+
+    private int zipfIndex(Random source) {
+        int index = Arrays.binarySearch(zipf, source.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, zipf.length - 1);
+    }
+
+    private String[] words(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder word = new StringBuilder();
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                word.append(ONSETS[random.nextInt(ONSETS.length)]).append(VOWELS[random.nextInt(VOWELS.length)]);
+            }
+            words[i] = word.append(CODAS[random.nextInt(CODAS.length)]).toString();
+        }
+        return words;
+    }
+
+    private static double[] cumulativeZipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= total;
+        }
+        return cumulative;
+    }
+
+    private static void append(StringBuilder message, String word, boolean capitalise) {
+        if (message.length() > 0) {
+            message.append(' ');
+        }
+        if (capitalise) {
+            message.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        } else {
+            message.append(word);
+        }
+    }
+
+    private static String userName(int user) {
+        return "user" + user;
+    }
+
+    private static String option(Map<String, String> options, String key, String fallback) {
+        return options.containsKey(key) ? options.get(key) : fallback;
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16);
+    }
+}
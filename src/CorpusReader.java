@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams the lines of a corpus file to a handler without reading the whole file into memory.
+ * The file is memory-mapped in windows and split on '\n' byte by byte, no regex is involved.
+ * Large files can be split into line aligned byte ranges which are then parsed in parallel, their lines are
+ * still passed to the handler in file order.
+ * Files ending in .gz or .zst are decompressed on a separate thread which feeds batches of lines
+ * to the handler, the zstd format requires the zstd binary to be available on the PATH.
+ */
+public final class CorpusReader {
+
+    public interface LineHandler {
+        void onLine(String line);
+    }
+
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final long PARALLEL_THRESHOLD = 64L * 1024 * 1024;
+    private static final long CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int SEEK_BUFFER_SIZE = 8192;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final List<String> END_OF_STREAM = new ArrayList<>();
+
+    public static final String[] COMPRESSED_SUFFIXES = {".gz", ".zst"};
+
+    private CorpusReader() {
+    }
+
+    public static long forEachLine(File file, LineHandler handler) throws IOException {
+        return forEachLine(file, 1, handler);
+    }
+
+    /**
+     * Reads every line of file and passes it to handler.
+     * When more than one thread is requested and the uncompressed file is large enough, chunks of it are
+     * parsed on that many threads while the calling thread passes their lines to handler in file order.
+     *
+     * @return the number of lines read
+     */
+    public static long forEachLine(File file, int threads, LineHandler handler) throws IOException {
+        return forEachLine(file, Long.MAX_VALUE, threads, handler);
+    }
+
+    /**
+     * Reads the lines of file within its first limit bytes, limit must be at the beginning of a line.
+     * Compressed files are always read completely.
+     *
+     * @see #forEachLine(File, int, LineHandler)
+     */
+    public static long forEachLine(File file, long limit, int threads, LineHandler handler) throws IOException {
+        if (isCompressed(file)) {
+            return forEachCompressedLine(file, handler);
+        }
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = Math.min(channel.size(), limit);
+            if (threads <= 1 || size < PARALLEL_THRESHOLD) {
+                return forEachLine(channel, 0, size, handler);
+            }
+
+            final long[] bounds = split(channel, size, (int) Math.min(Integer.MAX_VALUE, Math.max(threads, (size + CHUNK_SIZE - 1) / CHUNK_SIZE)));
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                // a bounded window of chunks is parsed ahead, the oldest is handled first
+                Deque<Future<List<String>>> pending = new ArrayDeque<>();
+                int next = 0;
+                long count = 0;
+                while (next < bounds.length - 1 || !pending.isEmpty()) {
+                    while (next < bounds.length - 1 && pending.size() < 2 * threads) {
+                        final long start = bounds[next];
+                        final long end = bounds[next + 1];
+                        pending.add(pool.submit(new Callable<List<String>>() {
+                            @Override
+                            public List<String> call() throws IOException {
+                                List<String> lines = new ArrayList<>();
+                                forEachLine(channel, start, end, lines::add);
+                                return lines;
+                            }
+                        }));
+                        next++;
+                    }
+                    for (String line : pending.poll().get()) {
+                        handler.onLine(line);
+                        count++;
+                    }
+                }
+                return count;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + file, e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed to read " + file, e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Splits a file into at most parts byte ranges, each starting at the beginning of a line.
+     *
+     * @return the range boundaries, range i is [bounds[i], bounds[i + 1])
+     */
+    public static long[] split(File file, int parts) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return split(channel, channel.size(), parts);
+        }
+    }
+
+    static long[] split(FileChannel channel, long size, int parts) throws IOException {
+        if (parts < 1) {
+            throw new IllegalArgumentException("parts must be at least 1");
+        }
+        long[] bounds = new long[parts + 1];
+        int count = 1;
+        ByteBuffer seek = ByteBuffer.allocate(SEEK_BUFFER_SIZE);
+        for (int i = 1; i < parts; i++) {
+            long boundary = nextLineStart(channel, Math.max(size * i / parts, bounds[count - 1]), size, seek);
+            if (boundary >= size) {
+                break;
+            }
+            if (boundary > bounds[count - 1]) {
+                bounds[count++] = boundary;
+            }
+        }
+        bounds[count] = size;
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    private static long nextLineStart(FileChannel channel, long position, long size, ByteBuffer seek) throws IOException {
+        while (position < size) {
+            seek.clear();
+            int read = channel.read(seek, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (seek.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Reads the lines within [start, end), start must be at the beginning of a line.
+     */
+    static long forEachLine(FileChannel channel, long start, long end, LineHandler handler) throws IOException {
+        LineBuffer line = new LineBuffer();
+        long count = 0;
+        long position = start;
+        while (position < end) {
+            long windowSize = Math.min(WINDOW_SIZE, end - position);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            while (window.hasRemaining()) {
+                byte b = window.get();
+                if (b == '\n') {
+                    handler.onLine(line.take());
+                    count++;
+                } else {
+                    line.append(b);
+                }
+            }
+            position += windowSize;
+        }
+        if (!line.isEmpty()) {
+            handler.onLine(line.take());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the complete lines appended to an uncompressed file since offset.
+     * A trailing line without a terminating '\n' is left for the next call.
+     *
+     * @return the offset just past the last line read, or the current file size if the file shrank below offset
+     */
+    public static long tail(File file, long offset, LineHandler handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= offset) {
+                return size;
+            }
+            long end = lastLineEnd(channel, offset, size);
+            forEachLine(channel, offset, end, handler);
+            return end;
+        }
+    }
+
+    /**
+     * @return the offset just past the last complete line of an uncompressed file, where {@link #tail} would stop
+     */
+    public static long completeLength(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return lastLineEnd(channel, 0, channel.size());
+        }
+    }
+
+    private static long lastLineEnd(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer seek = ByteBuffer.allocate(SEEK_BUFFER_SIZE);
+        long position = end;
+        while (position > start) {
+            int length = (int) Math.min(SEEK_BUFFER_SIZE, position - start);
+            seek.clear();
+            seek.limit(length);
+            int read = 0;
+            while (read < length) {
+                int n = channel.read(seek, position - length + read);
+                if (n <= 0) {
+                    return start;
+                }
+                read += n;
+            }
+            for (int i = length - 1; i >= 0; i--) {
+                if (seek.get(i) == '\n') {
+                    return position - length + i + 1;
+                }
+            }
+            position -= length;
+        }
+        return start;
+    }
+
+    public static boolean isCompressed(File file) {
+        return stripCompressedSuffix(file.getName()).length() != file.getName().length();
+    }
+
+    /**
+     * @return name without a trailing compression suffix, e.g. "Messages-Spam.txt.gz" becomes "Messages-Spam.txt"
+     */
+    public static String stripCompressedSuffix(String name) {
+        for (String suffix : COMPRESSED_SUFFIXES) {
+            if (name.endsWith(suffix)) {
+                return name.substring(0, name.length() - suffix.length());
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Finds the plain or compressed variant of a corpus file, preferring the plain file.
+     *
+     * @return the first variant that exists, or the plain file if none do
+     */
+    public static File resolve(File plain) {
+        if (plain.exists()) {
+            return plain;
+        }
+        for (String suffix : COMPRESSED_SUFFIXES) {
+            File compressed = new File(plain.getPath() + suffix);
+            if (compressed.exists()) {
+                return compressed;
+            }
+        }
+        return plain;
+    }
+
+    private static long forEachCompressedLine(final File file, LineHandler handler) throws IOException {
+        final Process zstd;
+        final InputStream in;
+        if (file.getName().endsWith(".zst")) {
+            try {
+                zstd = new ProcessBuilder("zstd", "-dcq", "--", file.getPath()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            } catch (IOException e) {
+                throw new IOException("Unable to run zstd to decompress " + file, e);
+            }
+            in = zstd.getInputStream();
+        } else {
+            zstd = null;
+            in = new GZIPInputStream(new FileInputStream(file), STREAM_BUFFER_SIZE);
+        }
+
+        final BlockingQueue<List<String>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+        Thread decoder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    decode(in, queue);
+                    if (zstd != null && zstd.waitFor() != 0) {
+                        throw new IOException("zstd exited with " + zstd.exitValue() + " while decompressing " + file);
+                    }
+                } catch (IOException e) {
+                    failure.set(e);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    queue.put(END_OF_STREAM);
+                } catch (InterruptedException ignored) {
+                }
+            }
+        }, "corpus-decoder-" + file.getName());
+        decoder.setDaemon(true);
+        decoder.start();
+
+        long count = 0;
+        try {
+            List<String> batch;
+            while ((batch = queue.take()) != END_OF_STREAM) {
+                for (String line : batch) {
+                    handler.onLine(line);
+                }
+                count += batch.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + file, e);
+        } finally {
+            decoder.interrupt();
+            in.close();
+            if (zstd != null) {
+                zstd.destroy();
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return count;
+    }
+
+    private static void decode(InputStream in, BlockingQueue<List<String>> queue) throws IOException, InterruptedException {
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        LineBuffer line = new LineBuffer();
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    batch.add(line.take());
+                    if (batch.size() == BATCH_SIZE) {
+                        queue.put(batch);
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                } else {
+                    line.append(buffer[i]);
+                }
+            }
+        }
+        if (!line.isEmpty()) {
+            batch.add(line.take());
+        }
+        if (!batch.isEmpty()) {
+            queue.put(batch);
+        }
+    }
+
+    /**
+     * Growable byte buffer holding the line currently being read.
+     */
+    private static final class LineBuffer {
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        String take() {
+            int end = length;
+            if (end > 0 && bytes[end - 1] == '\r') {
+                end--;
+            }
+            length = 0;
+            return new String(bytes, 0, end, StandardCharsets.UTF_8);
+        }
+    }
+}
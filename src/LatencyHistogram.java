@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets in the style of HdrHistogram.
+ * Every power of two range is split into 32 linear buckets, so recorded values keep roughly 3% precision
+ * from nanoseconds up to Long.MAX_VALUE while recording is a single atomic increment.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the highest value equivalent to the recorded value at percentile, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100d) / 100d));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * @return count, mean and percentiles in the given unit, e.g. "n=120 mean=0.42 p50=0.31 p90=0.88 p99=1.90 p999=2.40 max=2.41 (ms)"
+     */
+    public String summary(TimeUnit unit) {
+        double scale = unit.toNanos(1);
+        return String.format("n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f p999=%.3f max=%.3f (%s)",
+                getCount(), getMean() / scale, getValueAtPercentile(50) / scale, getValueAtPercentile(90) / scale,
+                getValueAtPercentile(99) / scale, getValueAtPercentile(99.9) / scale, getMax() / scale, unit.toString().toLowerCase());
+    }
+
+    static int indexOf(long value) {
+        int msb = 63 - Long.numberOfLeadingZeros(value | 1);
+        if (msb < SUB_BUCKET_BITS) {
+            return (int) value;
+        }
+        int shift = msb - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    static long highestValueOf(int index) {
+        int group = index / SUB_BUCKET_COUNT;
+        long sub = index % SUB_BUCKET_COUNT;
+        if (group == 0) {
+            return sub;
+        }
+        long lowest = (SUB_BUCKET_COUNT + sub) << (group - 1);
+        return lowest + (1L << (group - 1)) - 1;
+    }
+}
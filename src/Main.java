@@ -16,8 +16,7 @@
  */
 
 import net.sf.classifier4J.ClassifierException;
-import net.sf.classifier4J.bayesian.BayesianClassifier;
-import net.sf.classifier4J.vector.VectorClassifier;
+import net.sf.classifier4J.MessageAnalysis;
 import tigase.jaxmpp.core.client.BareJID;
 import tigase.jaxmpp.core.client.SessionObject;
 import tigase.jaxmpp.core.client.exceptions.JaxmppException;
@@ -28,11 +27,11 @@ import tigase.jaxmpp.j2se.Jaxmpp;
 import tigase.jaxmpp.j2se.Presence;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Main {
 
@@ -40,18 +39,27 @@ public class Main {
     private static final ArrayList<String> notifiedSpammer = new ArrayList<String>();
     private static final ArrayList<String> notSpammer = new ArrayList<String>();
     private static final Jaxmpp bot = new Jaxmpp();
-    private static final VectorClassifier vc = new VectorClassifier();
-    private static final BayesianClassifier bc = new BayesianClassifier();
     private static final String defaultCategory = "DEFAULT";
     private static final String joiningNickname = "bayebot";
     private static final double flagThresholdBC = 0.7;
     private static final double flagThresholdVC = 0.9;
-    private static final ArrayList<String> classifiedUsers = new ArrayList<>();
     private static final HashMap<String, String> userMessageLog = new HashMap<>();
+    private static final int corpusReaderThreads = Runtime.getRuntime().availableProcessors();
 
     private static String botAccount = "";
     private static String botAccountPassword = "";
     private static File cfgRooms;
+    private static File dbSpam;
+    private static File dbKnownGood;
+    private static File userDB;
+    private static ModelHolder models;
+    private static ReloadService reloadService;
+    private static final Metrics metrics = new Metrics();
+    private static final LongAdder messageCount = metrics.counter("messages");
+    private static final LongAdder flaggedCount = metrics.counter("flagged");
+    private static final LongAdder reportedCount = metrics.counter("reported");
+    private static final LongAdder errorCount = metrics.counter("errors");
+    private static final AsyncLog log = new AsyncLog(System.out, 8192);
 
     public static void main(String[] args) {
         boolean fatal = false;
@@ -65,26 +73,18 @@ public class Main {
                 System.out.println("[INIT] Invalid config directory path");
                 System.exit(1);
             }
-            File dbSpam = new File(configDirectory + "/Messages-Spam.txt");
-            if (dbSpam.exists()) {
-                populateBadMessageArray(dbSpam);
-            } else {
+            resolveCorpora(configDirectory);
+            if (!dbSpam.exists()) {
                 dbSpam.createNewFile();
                 System.out.println("[INIT] Spam message database doesn't exist, creating, please populate.");
                 fatal = true;
             }
-            File dbKnownGood = new File(configDirectory + "/Messages-KnownGood.txt");
-            if (dbKnownGood.exists()) {
-                populateGoodMessages(dbKnownGood);
-            } else {
+            if (!dbKnownGood.exists()) {
                 dbKnownGood.createNewFile();
                 System.out.println("[INIT] Known good message database doesn't exist, creating, please populate.");
                 fatal = true;
             }
-            File userDB = new File(configDirectory + "/Users/");
-            if (userDB.exists()) {
-                populateUserLog(userDB);
-            } else {
+            if (!userDB.exists()) {
                 userDB.mkdir();
                 System.out.println("[INIT] User database doesn't exist, creating, please populate to use the identifier feature.");
             }
@@ -98,6 +98,7 @@ public class Main {
                 System.out.println("[INIT] Room list doesn't exist, creating, please populate.");
                 fatal = true;
             }
+            reloadService = new ReloadService(configDirectory);
             File cfgAccount = new File(configDirectory + "/Account.txt");
             if (cfgAccount.exists()) {
                 parseAccountFromFile(cfgAccount);
@@ -120,6 +121,20 @@ public class Main {
             System.out.println("[INIT] Input requirements unsatisfied. Exiting!");
             System.exit(1);
         }
+        // the tails take over where the initial read stops
+        registerTails();
+        models = new ModelHolder(reloadService == null ? buildModel() : reloadService.withOffsets(Main::buildModel));
+        metrics.registerMBean();
+        metrics.startReporting(System.out, Long.getLong("bayebot.metricsInterval", 60));
+        new ModelMaintenance(models, metrics, log).start();
+        int metricsPort = Integer.getInteger("bayebot.metricsPort", 0);
+        if (metricsPort > 0) {
+            try {
+                new PrometheusExporter(metrics, models, log).start(metricsPort);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
 
         try {
             Presence.initialize(bot);
@@ -132,32 +147,12 @@ public class Main {
                 public void onMucMessageReceived(SessionObject sessionObject, Message message, Room room, String nickname, Date timestamp) {
                     try {
                         if (message.getBody() != null) {
-                            String fakeJID = nickname + "@" + room.getRoomJid();
                             String messageTxt = message.getBody().toString();
-
-                            String userMessagePrevious = "";
-                            if (userMessageLog.containsKey(fakeJID)) {
-                                userMessagePrevious = userMessageLog.get(fakeJID);
-                            }
-                            if (checkLine(messageTxt)) {
-                                userMessageLog.put(fakeJID, userMessagePrevious + "\n" + messageTxt);
-                            }
-
                             handleBotAction(messageTxt, room);
-
-                            double scoreVC = vc.classify(defaultCategory, messageTxt);
-                            double scoreBC = bc.classify(messageTxt);
-                            System.out.println("[DEBUG] " + scoreBC + " " + scoreVC + " [" + identifyUser(userMessageLog.get(fakeJID)) + "] " + fakeJID + ": " + messageTxt);
-                            if ((scoreBC >= flagThresholdBC || scoreVC >= flagThresholdVC) && messageTxt.length() >= 10) {
-                                if (allowedToReport && !notifiedSpammer.contains(nickname) && !notSpammer.contains(nickname)) {
-                                    notifiedSpammer.add(nickname);
-                                    String detectMessage = "Potential spam detected from " + nickname + ", score: " + scoreBC + " (bayesian) & " + scoreVC + " (vector)";
-                                    System.out.println("[SPAM] " + detectMessage);
-                                    //bot.getModule(MucModule.class).getRoom(room.getRoomJid()).sendMessage(detectMessage); //KEEP COMMENTED WHEN TESTING
-                                }
-                            }
+                            handleMessage(room.getRoomJid().toString(), nickname, messageTxt);
                         }
                     } catch (ClassifierException | JaxmppException e) {
+                        errorCount.increment();
                         //e.printStackTrace();
                     }
                 }
@@ -172,6 +167,7 @@ public class Main {
             if (bot.isConnected()) {
                 System.out.println("[INIT] Connected");
                 connectToRooms(cfgRooms);
+                startReloadService();
                 while (true) { //XXX: This shouldn't be necessary, but my connection is killed without it?
                     Thread.sleep(1000);
                     bot.keepalive();
@@ -185,88 +181,261 @@ public class Main {
         }
     }
 
+    /**
+     * Updates the user log, scores the message and reports it if it looks like spam.
+     * Kept free of XMPP types so recorded traffic can be replayed through it, see {@link Replay}.
+     *
+     * @return true if the message crossed a spam threshold
+     */
+    public static boolean handleMessage(String roomJid, String nickname, String messageTxt) throws ClassifierException {
+        long start = System.nanoTime();
+        String fakeJID = nickname + "@" + roomJid;
+
+        String userMessagePrevious = "";
+        if (userMessageLog.containsKey(fakeJID)) {
+            userMessagePrevious = userMessageLog.get(fakeJID);
+        }
+        if (checkLine(messageTxt)) {
+            userMessageLog.put(fakeJID, userMessagePrevious + "\n" + messageTxt);
+        }
+        long logged = System.nanoTime();
+
+        Model model = models.get();
+        double scoreVC;
+        double scoreBC;
+        String identifiedUser;
+        long scoredVC;
+        long scoredBC;
+        long identified;
+        // tokenized once for both classifiers, the user's log once for every user
+        MessageAnalysis message = new MessageAnalysis(messageTxt);
+        MessageAnalysis userLog = new MessageAnalysis(userMessageLog.getOrDefault(fakeJID, ""));
+        synchronized (model) {
+            scoreVC = model.vc.classify(defaultCategory, message);
+            scoredVC = System.nanoTime();
+            scoreBC = model.bc.classify(defaultCategory, message);
+            scoredBC = System.nanoTime();
+            identifiedUser = identifyUser(model, userLog);
+            identified = System.nanoTime();
+        }
+        log.log(AsyncLog.Level.DEBUG, "DEBUG", messageTxt, "jid", fakeJID, "bc", scoreBC, "vc", scoreVC, "user", identifiedUser);
+        boolean flagged = (scoreBC >= flagThresholdBC || scoreVC >= flagThresholdVC) && messageTxt.length() >= 10;
+        if (flagged) {
+            flaggedCount.increment();
+            if (allowedToReport && !notifiedSpammer.contains(nickname) && !notSpammer.contains(nickname)) {
+                notifiedSpammer.add(nickname);
+                reportedCount.increment();
+                String detectMessage = "Potential spam detected from " + nickname + ", score: " + scoreBC + " (bayesian) & " + scoreVC + " (vector)";
+                log.log(AsyncLog.Level.INFO, "SPAM", detectMessage, "jid", fakeJID, "bc", scoreBC, "vc", scoreVC);
+                //bot.getModule(MucModule.class).getRoom(room.getRoomJid()).sendMessage(detectMessage); //KEEP COMMENTED WHEN TESTING
+            }
+        }
+        long done = System.nanoTime();
+
+        messageCount.increment();
+        metrics.roomCounter(roomJid).increment();
+        metrics.record(PipelineStage.LOG, logged - start);
+        metrics.record(PipelineStage.VECTOR, scoredVC - logged);
+        metrics.record(PipelineStage.BAYESIAN, scoredBC - scoredVC);
+        metrics.record(PipelineStage.IDENTIFY, identified - scoredBC);
+        metrics.record(PipelineStage.VERDICT, done - identified);
+        metrics.record(PipelineStage.TOTAL, done - start);
+        return flagged;
+    }
+
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+
+    public static AsyncLog getLog() {
+        return log;
+    }
+
+    public static void resolveCorpora(File configDirectory) {
+        dbSpam = CorpusReader.resolve(new File(configDirectory + "/Messages-Spam.txt"));
+        dbKnownGood = CorpusReader.resolve(new File(configDirectory + "/Messages-KnownGood.txt"));
+        userDB = new File(configDirectory + "/Users/");
+    }
+
+    /**
+     * Trains the classifiers from the corpora in configDirectory without connecting.
+     */
+    public static void loadModel(File configDirectory) {
+        resolveCorpora(configDirectory);
+        models = new ModelHolder(buildModel());
+    }
+
+    public static Model buildModel() {
+        return buildModel(Collections.<File, Long>emptyMap());
+    }
+
+    /**
+     * @param limits the number of bytes to read of each corpus file, files not in it are read completely
+     */
+    public static Model buildModel(Map<File, Long> limits) {
+        Model model = new Model(metrics);
+        populateBadMessageArray(model, dbSpam, limits.getOrDefault(dbSpam, Long.MAX_VALUE));
+        populateGoodMessages(model, dbKnownGood, limits.getOrDefault(dbKnownGood, Long.MAX_VALUE));
+        if (userDB.exists()) {
+            populateUserLog(model, userDB);
+        }
+        return model;
+    }
+
+    public static void retrain() {
+        // lines past the tailed offsets reach the new model through the journal, so the rebuild stops there
+        boolean started = reloadService == null ? models.rebuild(Main::buildModel)
+                : reloadService.withOffsets(offsets -> models.rebuild(() -> buildModel(offsets)));
+        if (started) {
+            System.out.println("[DATABASE] Retraining in the background");
+        } else {
+            System.out.println("[DATABASE] Retraining already in progress");
+        }
+    }
+
+    /**
+     * Tails the corpora from their current end, lines appended later are taught once the service is started.
+     */
+    public static void registerTails() {
+        if (reloadService == null) {
+            return;
+        }
+        try {
+            reloadService.tail(dbSpam, line -> {
+                if (checkLine(line)) {
+                    models.teach(model -> teachBadMessage(model, line));
+                }
+            });
+            reloadService.tail(dbKnownGood, line -> {
+                if (checkLine(line)) {
+                    models.teach(model -> teachGoodMessage(model, line));
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public static void startReloadService() {
+        reloadService.watchRooms(cfgRooms, Main::updateRooms);
+        reloadService.setRetrainListener(Main::retrain);
+        try {
+            reloadService.start();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
     public static ArrayList<String> readFileToArray(File file) {
         ArrayList<String> contents = new ArrayList<>();
         if (file.exists() && file.canRead()) {
             try {
-                Scanner reader = new Scanner(file);
-                while (reader.hasNextLine()) {
-                    contents.add(reader.nextLine());
-                }
-            } catch (FileNotFoundException e) {
+                CorpusReader.forEachLine(file, contents::add);
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         }
         return contents;
     }
 
-    public static void populateBadMessageArray(File db) {
-        int count = 0;
-        ArrayList<String> knownBad = readFileToArray(db);
-        for (String line : knownBad) {
-            if (checkLine(line)) {
-                try {
-                    vc.teachMatch(defaultCategory, line);
-                    bc.teachMatch(defaultCategory, line);
-                    count++;
-                } catch (Exception e) {
-                    //e.printStackTrace();
-                }
+    public static void readCorpus(File file, CorpusReader.LineHandler handler) {
+        readCorpus(file, Long.MAX_VALUE, handler);
+    }
+
+    public static void readCorpus(File file, long limit, CorpusReader.LineHandler handler) {
+        if (file.exists() && file.canRead()) {
+            try {
+                CorpusReader.forEachLine(file, limit, corpusReaderThreads, handler);
+            } catch (IOException e) {
+                e.printStackTrace();
             }
         }
+    }
 
-        System.out.println("[DATABASE] Added bad matches count: " + count);
+    public static boolean teachBadMessage(Model model, String line) {
+        if (checkLine(line)) {
+            try {
+                synchronized (model) {
+                    model.vc.teachMatch(defaultCategory, line);
+                    model.bc.teachMatch(defaultCategory, line);
+                }
+                return true;
+            } catch (Exception e) {
+                //e.printStackTrace();
+            }
+        }
+        return false;
     }
 
-    public static void populateGoodMessages(File db) {
-        int count = 0;
-        ArrayList<String> knownGood = readFileToArray(db);
-        for (String line : knownGood) {
-            if (checkLine(line)) {
-                try {
-                    bc.teachNonMatch(defaultCategory, line);
-                    count++;
-                } catch (Exception e) {
-                    //e.printStackTrace();
+    public static boolean teachGoodMessage(Model model, String line) {
+        if (checkLine(line)) {
+            try {
+                synchronized (model) {
+                    model.bc.teachNonMatch(defaultCategory, line);
                 }
+                return true;
+            } catch (Exception e) {
+                //e.printStackTrace();
             }
         }
+        return false;
+    }
+
+    public static void populateBadMessageArray(Model model, File db, long limit) {
+        AtomicInteger count = new AtomicInteger();
+        readCorpus(db, limit, line -> {
+            if (teachBadMessage(model, line)) {
+                count.incrementAndGet();
+            }
+        });
+
+        System.out.println("[DATABASE] Added bad matches count: " + count);
+    }
+
+    public static void populateGoodMessages(Model model, File db, long limit) {
+        AtomicInteger count = new AtomicInteger();
+        readCorpus(db, limit, line -> {
+            if (teachGoodMessage(model, line)) {
+                count.incrementAndGet();
+            }
+        });
         System.out.println("[DATABASE] Added good matches count: " + count);
     }
 
-    public static void populateUserLog(File userDB) {
+    public static void populateUserLog(Model model, File userDB) {
         int countUser = 0;
-        int countLine = 0;
+        AtomicInteger countLine = new AtomicInteger();
         for (File file : Objects.requireNonNull(userDB.listFiles())) {
-            String user = file.getName().replaceAll(".txt", "");
-            ArrayList<String> userMessages = readFileToArray(file);
-            for (String line : userMessages) {
+            String user = CorpusReader.stripCompressedSuffix(file.getName()).replaceAll(".txt", "");
+            readCorpus(file, line -> {
                 if (checkLine(line)) {
                     try {
-                        countLine++;
-                        vc.teachMatch(user, line);
+                        countLine.incrementAndGet();
+                        synchronized (model) {
+                            model.vc.teachMatch(user, line);
+                        }
                     } catch (Exception e) {
                         //e.printStackTrace();
                     }
                 }
-            }
+            });
 
-            classifiedUsers.add(user);
+            model.classifiedUsers.add(user);
             countUser++;
         }
         System.out.println("[DATABASE] Added " + countUser + " users, with " + countLine + " messages");
     }
 
     public static boolean checkLine(String line) {
-        return line.length() >= 20 && !line.startsWith("> ") && !line.startsWith("https://") && StandardCharsets.US_ASCII.newEncoder().canEncode(line);
+        return line.length() >= 20 && !line.startsWith("> ") && !line.startsWith("https://");
     }
 
-    public static String identifyUser(String message) {
+    public static String identifyUser(Model model, MessageAnalysis message) {
         double likelyMatchPercent = 0.5;
         String likelyMatchUser = "UNKNOWN";
         try {
-            for (String user : classifiedUsers) {
-                double matchPercent = vc.classify(user, message);
+            for (String user : model.classifiedUsers) {
+                double matchPercent = model.vc.classify(user, message);
                 if (matchPercent > likelyMatchPercent) {
                     likelyMatchPercent = matchPercent;
                     likelyMatchUser = user;
@@ -284,8 +453,7 @@ public class Main {
         try {
             for (String room : rooms) {
                 if (room.contains("@")) {
-                    String[] roomSplit = room.split("@");
-                    bot.getModule(MucModule.class).join(roomSplit[0], roomSplit[1], joiningNickname);
+                    joinRoom(room.trim());
                     count++;
                 }
             }
@@ -295,6 +463,33 @@ public class Main {
         System.out.println("[BOT] Connecting to " + count + " rooms");
     }
 
+    public static void joinRoom(String room) throws JaxmppException {
+        String[] roomSplit = room.split("@");
+        bot.getModule(MucModule.class).join(roomSplit[0], roomSplit[1], joiningNickname);
+    }
+
+    public static void updateRooms(Set<String> added, Set<String> removed) {
+        for (String room : removed) {
+            try {
+                Room joined = bot.getModule(MucModule.class).getRoom(BareJID.bareJIDInstance(room));
+                if (joined != null) {
+                    bot.getModule(MucModule.class).leave(joined);
+                }
+                System.out.println("[BOT] Left " + room);
+            } catch (JaxmppException e) {
+                e.printStackTrace();
+            }
+        }
+        for (String room : added) {
+            try {
+                joinRoom(room);
+                System.out.println("[BOT] Joined " + room);
+            } catch (JaxmppException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
     public static void parseAccountFromFile(File cfgAccount) {
         ArrayList<String> account = readFileToArray(cfgAccount);
         botAccount = account.get(0);
@@ -320,6 +515,10 @@ public class Main {
                 bot.disconnect();
                 System.exit(0);
             }
+            if (message.equalsIgnoreCase("bayebot retrain")) {
+                bot.getModule(MucModule.class).getRoom(room.getRoomJid()).sendMessage(models.isRebuilding() ? "Already retraining" : "Retraining");
+                retrain();
+            }
             if (message.startsWith("bayebot identify ")) {
                 String[] msgSplit = message.split(" ");
                 //bot.getModule(MucModule.class).getRoom(room.getRoomJid()).sendMessage("Potential match: " + identifyUser(msgSplit[2] + "@" + room.getRoomJid()));
@@ -340,8 +539,11 @@ public class Main {
     }
 
     public static String identifyOneOff(String user, File file) {
+        Model model = models.get();
         try {
-            return user + " vs. " + file.getName().replaceAll(".txt", "") + ": " + vc.classify(user, arrayToStringChecked(readFileToArray(file)));
+            synchronized (model) {
+                return user + " vs. " + file.getName().replaceAll(".txt", "") + ": " + model.vc.classify(user, arrayToStringChecked(readFileToArray(file)));
+            }
         } catch (ClassifierException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import javax.management.*;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of counters and latency histograms for the message pipeline.
+ * Recording never takes a lock: counters are LongAdders and histograms are {@link LatencyHistogram}s,
+ * hot paths keep a reference to the metric instead of looking it up by name each time.
+ * The values are exposed as attributes of the JMX bean "bayebot:type=Metrics" and can be printed periodically.
+ */
+public final class Metrics implements DynamicMBean {
+
+    public static final String OBJECT_NAME = "bayebot:type=Metrics";
+
+    private final ConcurrentSkipListMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LatencyHistogram> latencies = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, LongAdder> roomMessages = new ConcurrentHashMap<>();
+    private final LatencyHistogram[] stages = new LatencyHistogram[PipelineStage.values().length];
+    private ScheduledExecutorService reporter;
+
+    public Metrics() {
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages[stage.ordinal()] = latency(stage.name().toLowerCase());
+        }
+    }
+
+    public LongAdder counter(String name) {
+        LongAdder counter = counters.get(name);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(name, k -> new LongAdder());
+        }
+        return counter;
+    }
+
+    /**
+     * @return the counter of messages seen in room
+     */
+    public LongAdder roomCounter(String room) {
+        LongAdder counter = roomMessages.get(room);
+        if (counter == null) {
+            counter = roomMessages.computeIfAbsent(room, k -> new LongAdder());
+        }
+        return counter;
+    }
+
+    public Map<String, LongAdder> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public Map<String, LatencyHistogram> getLatencies() {
+        return Collections.unmodifiableMap(latencies);
+    }
+
+    public Map<String, LongAdder> getRoomCounters() {
+        return Collections.unmodifiableMap(roomMessages);
+    }
+
+    public LatencyHistogram latency(String name) {
+        LatencyHistogram latency = latencies.get(name);
+        if (latency == null) {
+            latency = latencies.computeIfAbsent(name, k -> new LatencyHistogram());
+        }
+        return latency;
+    }
+
+    public LatencyHistogram latency(PipelineStage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    public void record(PipelineStage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    public void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram latency : latencies.values()) {
+            latency.reset();
+        }
+        for (LongAdder counter : roomMessages.values()) {
+            counter.reset();
+        }
+    }
+
+    public void print(PrintStream out) {
+        StringBuilder line = new StringBuilder("[METRICS]");
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            line.append(' ').append(counter.getKey()).append('=').append(counter.getValue().sum());
+        }
+        out.println(line);
+        for (Map.Entry<String, LatencyHistogram> latency : latencies.entrySet()) {
+            if (latency.getValue().getCount() > 0) {
+                out.println("[METRICS] " + latency.getKey() + " " + latency.getValue().summary(TimeUnit.MICROSECONDS));
+            }
+        }
+    }
+
+    public void registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Prints all metrics to out every interval seconds, does nothing if interval is not positive.
+     */
+    public synchronized void startReporting(final PrintStream out, long interval) {
+        if (interval <= 0 || reporter != null) {
+            return;
+        }
+        reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> print(out), interval, interval, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if (counters.containsKey(attribute)) {
+            return counters.get(attribute).sum();
+        }
+        int split = attribute.lastIndexOf('.');
+        if (split > 0 && latencies.containsKey(attribute.substring(0, split))) {
+            LatencyHistogram latency = latencies.get(attribute.substring(0, split));
+            switch (attribute.substring(split + 1)) {
+                case "count":
+                    return (double) latency.getCount();
+                case "meanMicros":
+                    return latency.getMean() / 1000d;
+                case "p50Micros":
+                    return latency.getValueAtPercentile(50) / 1000d;
+                case "p99Micros":
+                    return latency.getValueAtPercentile(99) / 1000d;
+                case "maxMicros":
+                    return latency.getMax() / 1000d;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList result = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                result.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException ignored) {
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only");
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws MBeanException, ReflectionException {
+        if ("reset".equals(actionName)) {
+            reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String counter : counters.keySet()) {
+            attributes.add(new MBeanAttributeInfo(counter, "long", "Counter " + counter, true, false, false));
+        }
+        for (String latency : latencies.keySet()) {
+            for (String statistic : new String[]{"count", "meanMicros", "p50Micros", "p99Micros", "maxMicros"}) {
+                attributes.add(new MBeanAttributeInfo(latency + "." + statistic, "double", "Latency of " + latency, true, false, false));
+            }
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Resets all metrics", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION);
+        return new MBeanInfo(getClass().getName(), "Bayebot pipeline metrics", attributes.toArray(new MBeanAttributeInfo[0]),
+                null, new MBeanOperationInfo[]{reset}, null);
+    }
+}
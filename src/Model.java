@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import net.sf.classifier4J.CharacterNGramTokenizer;
+import net.sf.classifier4J.DefaultStopWordsProvider;
+import net.sf.classifier4J.DefaultTokenizer;
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.ITokenizer;
+import net.sf.classifier4J.NormalizingTokenizer;
+import net.sf.classifier4J.TextNormalizer;
+import net.sf.classifier4J.bayesian.BayesianClassifier;
+import net.sf.classifier4J.bayesian.CountMinWordsDataSource;
+import net.sf.classifier4J.bayesian.HashedWordsDataSource;
+import net.sf.classifier4J.bayesian.IWordsDataSource;
+import net.sf.classifier4J.bayesian.SimpleWordsDataSource;
+import net.sf.classifier4J.vector.HashMapTermVectorStorage;
+import net.sf.classifier4J.vector.VectorClassifier;
+
+import java.util.ArrayList;
+
+/**
+ * The classifiers trained from one load of the corpora.
+ * The classifiers are not thread-safe, callers synchronize on the model while training or classifying.
+ * <p>
+ * The bayesian words are counted exactly unless -Dbayebot.countMinMiB is set, they are then kept in count-min
+ * sketches of that size with up to -Dbayebot.heavyHitters (65536) frequent words counted exactly.
+ * With -Dbayebot.hashBits set both classifiers use the hashing trick instead, over 2^hashBits features.
+ * With -Dbayebot.ngram set the bayesian classifier learns character n-grams of that length instead of words.
+ * With hashing, -Dbayebot.phrases=2 or 3 makes the bayesian classifier learn pairs or triples of adjacent words too.
+ * All input is folded by a {@link TextNormalizer} first, so lookalike characters count as the letters they imitate.
+ */
+public final class Model {
+
+    final VectorClassifier vc;
+    final BayesianClassifier bc;
+    final ArrayList<String> classifiedUsers = new ArrayList<>();
+    final IWordsDataSource words;
+    final HashMapTermVectorStorage vectors = new HashMapTermVectorStorage();
+
+    public Model(Metrics metrics) {
+        int hashBits = Integer.getInteger("bayebot.hashBits", 0);
+        int ngram = Integer.getInteger("bayebot.ngram", 0);
+        if (hashBits > 0) {
+            int phrases = Integer.getInteger("bayebot.phrases", 1);
+            FeatureHasher wordHasher = ngram > 0 ? new CharacterNGramTokenizer(ngram, hashBits)
+                    : new FeatureHasher(hashBits, new DefaultStopWordsProvider().getStopWords(), phrases);
+            wordHasher.setNormalizer(new TextNormalizer());
+            HashedWordsDataSource hashedWords = new HashedWordsDataSource(wordHasher);
+            words = hashedWords;
+            FeatureHasher vectorHasher = new FeatureHasher(hashBits);
+            vectorHasher.setNormalizer(new TextNormalizer());
+            vc = new VectorClassifier(vectors, vectorHasher);
+            bc = new BayesianClassifier(hashedWords);
+            return;
+        }
+        LatencyHistogram tokenizeLatency = metrics.latency("tokenize");
+        words = newWordsDataSource();
+        // one instance, so a MessageAnalysis tokenizes each message once for both classifiers
+        ITokenizer wordTokenizer = new TimedTokenizer(new NormalizingTokenizer(new DefaultTokenizer(DefaultTokenizer.BREAK_ON_WORD_BREAKS)), tokenizeLatency);
+        vc = new VectorClassifier(vectors, wordTokenizer);
+        if (ngram > 0) {
+            // n-grams such as "the" are not stop words
+            bc = new BayesianClassifier(words, new TimedTokenizer(new NormalizingTokenizer(new CharacterNGramTokenizer(ngram, 1)), tokenizeLatency), word -> false);
+        } else {
+            bc = new BayesianClassifier(words, wordTokenizer);
+        }
+    }
+
+    private static IWordsDataSource newWordsDataSource() {
+        long countMinMiB = Long.getLong("bayebot.countMinMiB", 0);
+        if (countMinMiB > 0) {
+            return CountMinWordsDataSource.forMemory(countMinMiB * 1024 * 1024, 5, Integer.getInteger("bayebot.heavyHitters", 65536), 64);
+        }
+        return new SimpleWordsDataSource();
+    }
+
+    /**
+     * @return the size of the bayesian words, every data source used here reports it
+     */
+    IModelSize getWordsSize() {
+        return (IModelSize) words;
+    }
+
+    /**
+     * @return an estimate of the heap retained by both classifiers in bytes
+     */
+    public long getEstimatedBytes() {
+        return getWordsSize().getEstimatedBytes() + vectors.getEstimatedBytes();
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the live {@link Model} and replaces it without pausing classification.
+ * A full retrain builds a new model on a background thread and publishes it with a single volatile write,
+ * readers keep using the model they fetched until they fetch again.
+ * Lessons taught while a rebuild is running are recorded and replayed onto the new model before it is published.
+ */
+public final class ModelHolder {
+
+    public interface Builder {
+        Model build();
+    }
+
+    public interface Lesson {
+        void apply(Model model);
+    }
+
+    private volatile Model model;
+    private List<Lesson> journal;
+
+    public ModelHolder(Model model) {
+        this.model = model;
+    }
+
+    public Model get() {
+        return model;
+    }
+
+    /**
+     * Applies an incremental update to the live model.
+     */
+    public synchronized void teach(Lesson lesson) {
+        Model target = model;
+        synchronized (target) {
+            lesson.apply(target);
+        }
+        if (journal != null) {
+            journal.add(lesson);
+        }
+    }
+
+    public synchronized boolean isRebuilding() {
+        return journal != null;
+    }
+
+    /**
+     * Starts building a replacement model in the background.
+     * Every lesson taught from now on is replayed onto the new model, so builder must only train what was
+     * taught before this call or the lesson is trained twice.
+     *
+     * @return false if a rebuild is already running
+     */
+    public synchronized boolean rebuild(final Builder builder) {
+        if (journal != null) {
+            return false;
+        }
+        journal = new ArrayList<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Model fresh = null;
+                try {
+                    fresh = builder.build();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+                publish(fresh);
+            }
+        }, "model-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    private synchronized void publish(Model fresh) {
+        if (fresh != null) {
+            for (Lesson lesson : journal) {
+                lesson.apply(fresh);
+            }
+            model = fresh;
+        }
+        journal = null;
+    }
+}
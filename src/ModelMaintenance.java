@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import net.sf.classifier4J.bayesian.SimpleWordsDataSource;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the bayesian vocabulary bounded over long deployments by decaying and pruning it in the background.
+ * Once a second a small batch of words is swept under the model lock, sized so that every word is visited
+ * once per cycle, see {@link net.sf.classifier4J.bayesian.SimpleWordsDataSource#sweep} for what a visit does.
+ * While the model is estimated to be larger than its memory budget the cycle is shortened to a minute.
+ * Decay is off by default: the corpus is only taught at startup, so decaying it would erode the trained model
+ * over a long deployment. Enable it when the model is retrained or taught online often enough to replace what fades.
+ * Words kept in count-min sketches or hashed features are not swept, their size is fixed.
+ * <p>
+ * Tuned with -Dbayebot.pruneCycleHours (24, 0 disables), -Dbayebot.decay (1, off), -Dbayebot.pruneMinCount (1),
+ * -Dbayebot.pruneNeutralMargin (0.02), -Dbayebot.pruneNeutralMaxCount (10), which spares neutral words seen at least
+ * that often, and -Dbayebot.modelBudgetMiB (0, unlimited).
+ */
+public final class ModelMaintenance implements Runnable {
+
+    private static final long TICK_MILLIS = 1000;
+    private static final long PRESSURE_CYCLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ModelHolder models;
+    private final AsyncLog log;
+    private final LongAdder pruned;
+    private final long cycleMillis;
+    private final double decay;
+    private final long minCount;
+    private final double neutralMargin;
+    private final long neutralMaxCount;
+    private final long budgetBytes;
+    private Model lastModel;
+    private long lastCycles;
+    private boolean overBudget;
+
+    public ModelMaintenance(ModelHolder models, Metrics metrics, AsyncLog log) {
+        this.models = models;
+        this.log = log;
+        this.pruned = metrics.counter("pruned");
+        this.cycleMillis = (long) (Double.parseDouble(System.getProperty("bayebot.pruneCycleHours", "24")) * TimeUnit.HOURS.toMillis(1));
+        this.decay = Double.parseDouble(System.getProperty("bayebot.decay", "1"));
+        this.minCount = Long.getLong("bayebot.pruneMinCount", 1);
+        this.neutralMargin = Double.parseDouble(System.getProperty("bayebot.pruneNeutralMargin", "0.02"));
+        this.neutralMaxCount = Long.getLong("bayebot.pruneNeutralMaxCount", 10);
+        this.budgetBytes = Long.getLong("bayebot.modelBudgetMiB", 0) * 1024 * 1024;
+        if (decay < 0 || decay > 1) {
+            throw new IllegalArgumentException("bayebot.decay must be between 0 and 1");
+        }
+    }
+
+    /**
+     * @return false if maintenance is disabled
+     */
+    public boolean start() {
+        if (cycleMillis <= 0) {
+            return false;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "model-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    @Override
+    public void run() {
+        try {
+            Model model = models.get();
+            if (!(model.words instanceof SimpleWordsDataSource)) {
+                // sketches and hashed features have a fixed size
+                return;
+            }
+            SimpleWordsDataSource words = (SimpleWordsDataSource) model.words;
+            int removed;
+            long cycles;
+            long terms;
+            long bytes;
+            synchronized (model) {
+                long over = budgetBytes > 0 ? model.getEstimatedBytes() - budgetBytes : 0;
+                if (over > 0 != overBudget) {
+                    overBudget = over > 0;
+                    log.log(overBudget ? AsyncLog.Level.WARN : AsyncLog.Level.INFO, "PRUNE",
+                            overBudget ? "Model is over its memory budget, pruning faster" : "Model is back within its memory budget",
+                            "bytes", model.getEstimatedBytes(), "budget", budgetBytes);
+                }
+                long batch = batchSize(words.getTermCount(), overBudget ? Math.min(cycleMillis, PRESSURE_CYCLE_MILLIS) : cycleMillis);
+                removed = words.sweep((int) Math.min(batch, Integer.MAX_VALUE), decay, minCount, neutralMargin, neutralMaxCount);
+                cycles = words.getSweepCycles();
+                terms = words.getTermCount();
+                bytes = model.getEstimatedBytes();
+            }
+            pruned.add(removed);
+            if (model == lastModel && cycles != lastCycles) {
+                log.log(AsyncLog.Level.INFO, "PRUNE", "Finished a sweep of the vocabulary", "terms", terms, "bytes", bytes);
+            }
+            lastModel = model;
+            lastCycles = cycles;
+        } catch (RuntimeException e) {
+            // an exception would cancel all further runs
+            e.printStackTrace();
+        }
+    }
+
+    private static long batchSize(long terms, long cycleMillis) {
+        return terms * TICK_MILLIS / cycleMillis + 1;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import net.sf.classifier4J.IModelSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves the pipeline metrics at /metrics in the Prometheus text exposition format.
+ * The server only binds to the loopback address, scrape it through a local agent or a reverse proxy.
+ * Counters are exported as totals, per second rates are left to the query, e.g. rate(bayebot_messages_total[1m]).
+ */
+public final class PrometheusExporter implements HttpHandler {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+    private static final String[] MODEL_STORES = {"bayesian", "vector"};
+    private static final String[] MODEL_SIZE_METRICS = {"bayebot_model_terms", "bayebot_model_categories", "bayebot_model_bytes"};
+
+    private final Metrics metrics;
+    private final ModelHolder models;
+    private final AsyncLog log;
+    private final StringBuilder body = new StringBuilder(8192);
+    private HttpServer server;
+
+    public PrometheusExporter(Metrics metrics, ModelHolder models, AsyncLog log) {
+        this.metrics = metrics;
+        this.models = models;
+        this.log = log;
+    }
+
+    /**
+     * Starts serving on the loopback address, port 0 picks a free port.
+     *
+     * @return the port bound
+     */
+    public synchronized int start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this);
+        server.setExecutor(Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-exporter");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.start();
+        System.out.println("[METRICS] Serving Prometheus metrics at http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/metrics");
+        return server.getAddress().getPort();
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] response = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Renders every metric, requests are served one at a time so the buffer is reused between scrapes.
+     */
+    String render() {
+        body.setLength(0);
+        for (Map.Entry<String, LongAdder> counter : metrics.getCounters().entrySet()) {
+            String name = "bayebot_" + sanitize(counter.getKey()) + "_total";
+            type(name, "counter");
+            sample(name, "", counter.getValue().sum());
+        }
+
+        type("bayebot_room_messages_total", "counter");
+        for (Map.Entry<String, LongAdder> room : metrics.getRoomCounters().entrySet()) {
+            sample("bayebot_room_messages_total", "room=\"" + escape(room.getKey()) + "\"", room.getValue().sum());
+        }
+
+        type("bayebot_stage_latency_seconds", "summary");
+        for (Map.Entry<String, LatencyHistogram> latency : metrics.getLatencies().entrySet()) {
+            LatencyHistogram histogram = latency.getValue();
+            String stage = "stage=\"" + escape(latency.getKey()) + "\"";
+            for (double quantile : QUANTILES) {
+                sample("bayebot_stage_latency_seconds", stage + ",quantile=\"" + quantile + "\"", histogram.getValueAtPercentile(quantile * 100) / 1e9);
+            }
+            sample("bayebot_stage_latency_seconds_sum", stage, histogram.getSum() / 1e9);
+            sample("bayebot_stage_latency_seconds_count", stage, histogram.getCount());
+        }
+
+        type("bayebot_log_queue_depth", "gauge");
+        sample("bayebot_log_queue_depth", "", log.getDepth());
+        type("bayebot_log_dropped_total", "counter");
+        sample("bayebot_log_dropped_total", "", log.getDropped());
+
+        Model model = models.get();
+        IModelSize[] stores = {model.getWordsSize(), model.vectors};
+        long[][] sizes = new long[stores.length][];
+        synchronized (model) {
+            for (int i = 0; i < stores.length; i++) {
+                sizes[i] = new long[]{stores[i].getTermCount(), stores[i].getCategoryCount(), stores[i].getEstimatedBytes()};
+            }
+        }
+        for (int metric = 0; metric < MODEL_SIZE_METRICS.length; metric++) {
+            type(MODEL_SIZE_METRICS[metric], "gauge");
+            for (int i = 0; i < stores.length; i++) {
+                sample(MODEL_SIZE_METRICS[metric], "store=\"" + MODEL_STORES[i] + "\"", sizes[i][metric]);
+            }
+        }
+        type("bayebot_model_rebuilding", "gauge");
+        sample("bayebot_model_rebuilding", "", models.isRebuilding() ? 1 : 0);
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        type("bayebot_jvm_heap_used_bytes", "gauge");
+        sample("bayebot_jvm_heap_used_bytes", "", heap.getUsed());
+        type("bayebot_jvm_heap_committed_bytes", "gauge");
+        sample("bayebot_jvm_heap_committed_bytes", "", heap.getCommitted());
+        type("bayebot_jvm_gc_collections_total", "counter");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample("bayebot_jvm_gc_collections_total", "collector=\"" + escape(collector.getName()) + "\"", Math.max(0, collector.getCollectionCount()));
+        }
+        type("bayebot_jvm_gc_collection_seconds_total", "counter");
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample("bayebot_jvm_gc_collection_seconds_total", "collector=\"" + escape(collector.getName()) + "\"", Math.max(0, collector.getCollectionTime()) / 1e3);
+        }
+        return body.toString();
+    }
+
+    private void type(String name, String type) {
+        body.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String labels, long value) {
+        appendName(name, labels);
+        body.append(value).append('\n');
+    }
+
+    private void sample(String name, String labels, double value) {
+        appendName(name, labels);
+        body.append(value).append('\n');
+    }
+
+    private void appendName(String name, String labels) {
+        body.append(name);
+        if (!labels.isEmpty()) {
+            body.append('{').append(labels).append('}');
+        }
+        body.append(' ');
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
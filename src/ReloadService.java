@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Watches the config directory and applies changes without a restart.
+ * Lines appended to a tailed corpus file are handed to its handler, everything already read is skipped.
+ * Changes to the room list are reported as the rooms added and removed since the last read.
+ */
+public final class ReloadService implements Runnable {
+
+    public interface RoomListener {
+        void onRoomsChanged(Set<String> added, Set<String> removed);
+    }
+
+    private static final class Tail {
+        private final File file;
+        private final CorpusReader.LineHandler handler;
+        private long offset;
+
+        private Tail(File file, CorpusReader.LineHandler handler, long offset) {
+            this.file = file;
+            this.handler = handler;
+            this.offset = offset;
+        }
+    }
+
+    private final File directory;
+    private final Map<String, Tail> tails = new HashMap<>();
+    private File roomsFile;
+    private Set<String> rooms = new LinkedHashSet<>();
+    private RoomListener roomListener;
+    private Runnable retrainListener;
+    private WatchService watchService;
+
+    public ReloadService(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Passes the lines after the last complete line of file at this call to handler, once started.
+     * Tails are meant to be registered before the corpus is first read, which should stop at {@link #withOffsets},
+     * so that no line is read twice or missed while the service is not yet running.
+     * Compressed files cannot be appended to and are ignored.
+     */
+    public synchronized void tail(File file, CorpusReader.LineHandler handler) throws IOException {
+        if (CorpusReader.isCompressed(file)) {
+            System.out.println("[RELOAD] Not watching compressed " + file.getName());
+            return;
+        }
+        tails.put(file.getName(), new Tail(file, handler, CorpusReader.completeLength(file)));
+    }
+
+    /**
+     * Runs action with the offset up to which each tailed file has been passed to its handler, the lines after it
+     * are passed later. No lines are read while action runs, so a retrain can read each file up to its offset
+     * and leave the rest to the handlers.
+     */
+    public synchronized <T> T withOffsets(Function<Map<File, Long>, T> action) {
+        Map<File, Long> offsets = new HashMap<>();
+        for (Tail tail : tails.values()) {
+            offsets.put(tail.file, tail.offset);
+        }
+        return action.apply(offsets);
+    }
+
+    public void watchRooms(File roomsFile, RoomListener listener) {
+        this.roomsFile = roomsFile;
+        this.rooms = readRooms(roomsFile);
+        this.roomListener = listener;
+    }
+
+    /**
+     * Called when a tailed file shrinks, as lines already trained can only be forgotten by a full retrain.
+     */
+    public void setRetrainListener(Runnable listener) {
+        this.retrainListener = listener;
+    }
+
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread thread = new Thread(this, "reload-service");
+        thread.setDaemon(true);
+        thread.start();
+        System.out.println("[RELOAD] Watching " + directory);
+    }
+
+    public void stop() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    @Override
+    public void run() {
+        // lines appended before the directory was watched raise no event
+        for (Tail tail : tails.values()) {
+            try {
+                readAppended(tail);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        continue;
+                    }
+                    String name = ((Path) event.context()).toString();
+                    try {
+                        if (tails.containsKey(name)) {
+                            readAppended(tails.get(name));
+                        } else if (roomsFile != null && name.equals(roomsFile.getName())) {
+                            reloadRooms();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }
+                if (!key.reset()) {
+                    System.out.println("[RELOAD] Config directory is no longer accessible, stopping");
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            //Stopped
+        }
+    }
+
+    private synchronized void readAppended(final Tail tail) throws IOException {
+        long size = tail.file.length();
+        if (size < tail.offset) {
+            tail.offset = size;
+            if (retrainListener != null) {
+                System.out.println("[RELOAD] " + tail.file.getName() + " shrank, retraining");
+                retrainListener.run();
+            } else {
+                System.out.println("[RELOAD] " + tail.file.getName() + " shrank, removed lines stay trained until the next full retrain");
+            }
+            return;
+        }
+        final long[] count = {0};
+        tail.offset = CorpusReader.tail(tail.file, tail.offset, line -> {
+            tail.handler.onLine(line);
+            count[0]++;
+        });
+        if (count[0] > 0) {
+            System.out.println("[RELOAD] Read " + count[0] + " new lines from " + tail.file.getName());
+        }
+    }
+
+    private void reloadRooms() {
+        Set<String> current = readRooms(roomsFile);
+        Set<String> added = new LinkedHashSet<>(current);
+        added.removeAll(rooms);
+        Set<String> removed = new LinkedHashSet<>(rooms);
+        removed.removeAll(current);
+        rooms = current;
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            roomListener.onRoomsChanged(added, removed);
+        }
+    }
+
+    private static Set<String> readRooms(File roomsFile) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String room : Main.readFileToArray(roomsFile)) {
+            room = room.trim();
+            if (room.contains("@")) {
+                result.add(room);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded chat log through {@link Main#handleMessage(String, String, String)} without an XMPP connection
+ * and reports throughput, per stage latency and heap usage.
+ * <p>
+ * Usage: java -cp bayebot.jar Replay &lt;config directory&gt; &lt;chat log&gt; [speed-up]
+ * <p>
+ * Each line of the chat log is "timestamp TAB room TAB nickname TAB body", the timestamp being either
+ * epoch milliseconds or an ISO-8601 instant. A speed-up of 0 (the default) replays as fast as possible,
+ * otherwise the recorded gaps between messages are divided by the speed-up.
+ * The per message log output is still produced but discarded while replaying.
+ */
+public final class Replay {
+
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Thrown out of the line handler to stop the replay when the replaying thread is interrupted.
+     */
+    private static final class Interrupted extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Interrupted(InterruptedException cause) {
+            super(cause);
+        }
+    }
+
+    private final double speedUp;
+    private final PrintStream report;
+    private long messages = 0;
+    private long flagged = 0;
+    private long skipped = 0;
+    private long firstTimestamp = -1;
+    private long replayStart;
+    private long lastProgress;
+
+    private Replay(double speedUp, PrintStream report) {
+        this.speedUp = speedUp;
+        this.report = report;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("[REPLAY] Usage: Replay <config directory> <chat log> [speed-up]");
+            System.exit(1);
+        }
+        File configDirectory = new File(args[0]);
+        File chatLog = new File(args[1]);
+        double speedUp = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        if (!configDirectory.isDirectory() || !chatLog.canRead()) {
+            System.out.println("[REPLAY] Invalid config directory or chat log path");
+            System.exit(1);
+        }
+
+        long loadStart = System.nanoTime();
+        Main.loadModel(configDirectory);
+        System.out.println("[REPLAY] Trained in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart) + "ms, heap used " + usedHeapMiB() + "MiB");
+
+        PrintStream out = System.out;
+        final Replay replay = new Replay(speedUp, out);
+        Main.getMetrics().reset();
+        Main.getLog().setOutput(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        try {
+            replay.replayStart = System.nanoTime();
+            replay.lastProgress = replay.replayStart;
+            CorpusReader.forEachLine(chatLog, replay::replayLine);
+        } catch (Interrupted e) {
+            System.out.println("[REPLAY] Interrupted, stopping");
+        } finally {
+            Main.getLog().flush();
+            Main.getLog().setOutput(out);
+        }
+        replay.printReport();
+    }
+
+    private void replayLine(String line) {
+        String[] fields = line.split("\t", 4);
+        if (fields.length < 4) {
+            skipped++;
+            return;
+        }
+        try {
+            pace(parseTimestamp(fields[0]));
+            if (Main.handleMessage(fields[1], fields[2], fields[3])) {
+                flagged++;
+            }
+            messages++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Interrupted(e);
+        } catch (Exception e) {
+            skipped++;
+        }
+        long now = System.nanoTime();
+        if (now - lastProgress >= PROGRESS_INTERVAL) {
+            lastProgress = now;
+            report.println("[REPLAY] " + messages + " messages, " + String.format("%.1f", messagesPerSecond(now)) + " msg/s");
+        }
+    }
+
+    private void pace(long timestamp) throws InterruptedException {
+        if (speedUp <= 0) {
+            return;
+        }
+        if (firstTimestamp < 0) {
+            firstTimestamp = timestamp;
+        }
+        long due = replayStart + (long) (TimeUnit.MILLISECONDS.toNanos(timestamp - firstTimestamp) / speedUp);
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private static long parseTimestamp(String timestamp) {
+        timestamp = timestamp.trim();
+        for (int i = 0; i < timestamp.length(); i++) {
+            if (!Character.isDigit(timestamp.charAt(i))) {
+                return Instant.parse(timestamp).toEpochMilli();
+            }
+        }
+        return Long.parseLong(timestamp);
+    }
+
+    private double messagesPerSecond(long now) {
+        double seconds = (now - replayStart) / 1e9;
+        return seconds > 0 ? messages / seconds : 0;
+    }
+
+    private void printReport() {
+        report.println("[REPLAY] Replayed " + messages + " messages (" + flagged + " flagged, " + skipped + " skipped) at "
+                + String.format("%.1f", messagesPerSecond(System.nanoTime())) + " msg/s");
+        Metrics metrics = Main.getMetrics();
+        for (PipelineStage stage : PipelineStage.values()) {
+            report.println("[REPLAY] " + stage + " " + metrics.latency(stage).summary(TimeUnit.MICROSECONDS));
+        }
+        report.println("[REPLAY] TOKENIZE " + metrics.latency("tokenize").summary(TimeUnit.MICROSECONDS));
+        report.println("[REPLAY] Heap used " + usedHeapMiB() + "MiB, peak " + peakHeapMiB() + "MiB");
+    }
+
+    private static long usedHeapMiB() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+    }
+
+    private static long peakHeapMiB() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak / (1024 * 1024);
+    }
+}
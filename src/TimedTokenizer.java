@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import net.sf.classifier4J.ITokenHandler;
+import net.sf.classifier4J.ITokenizer;
+
+/**
+ * Records how long the wrapped tokenizer takes for every input.
+ */
+public final class TimedTokenizer implements ITokenizer {
+
+    private final ITokenizer tokenizer;
+    private final LatencyHistogram latency;
+
+    public TimedTokenizer(ITokenizer tokenizer, LatencyHistogram latency) {
+        this.tokenizer = tokenizer;
+        this.latency = latency;
+    }
+
+    public String[] tokenize(String input) {
+        long start = System.nanoTime();
+        String[] tokens = tokenizer.tokenize(input);
+        latency.record(System.nanoTime() - start);
+        return tokens;
+    }
+
+    /**
+     * The recorded time includes the handler's, as tokens are handled while the input is split.
+     */
+    public void tokenize(CharSequence input, ITokenHandler handler) {
+        long start = System.nanoTime();
+        tokenizer.tokenize(input, handler);
+        latency.record(System.nanoTime() - start);
+    }
+
+    public String toString() {
+        return tokenizer.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package net.sf.classifier4J;
+
+import net.sf.classifier4J.util.ToStringBuilder;
+
+/**
+ * Splits input into overlapping character n-grams, which survive the obfuscation that breaks word
+ * tokenizers: "fr33 cr4pto" still shares most of its n-grams with other spellings of the same spam.
+ * <p>
+ * Before the n-grams are taken the input is lowercased, format characters such as zero-width spaces and
+ * joiners are dropped, and every run of characters that are not letters or digits becomes one space.
+ * The result is padded with a space on both sides, so the n-grams at the start and end of words are distinct.
+ * Input shorter than n yields a single n-gram of the whole text.
+ * <p>
+ * As a {@link FeatureHasher} the n-grams are hashed with a rolling polynomial hash, each n-gram costs one
+ * multiply-add over the previous one and no substrings are created. {@link #tokenize} returns the n-grams
+ * as Strings for classifiers using String keyed data sources, {@link #feature} of such an n-gram matches its
+ * rolling hash. Instances keep a scratch buffer and are not thread-safe.
+ */
+public class CharacterNGramTokenizer extends FeatureHasher implements ITokenizer {
+
+    private static final int BASE = 31;
+
+    private final int n;
+    // BASE to the power of n, to remove the character leaving the window
+    private final int power;
+    private char[] normalized = new char[256];
+
+    /**
+     * @param n    characters per n-gram
+     * @param bits the number of features is 2<sup>bits</sup>
+     */
+    public CharacterNGramTokenizer(int n, int bits) {
+        super(bits, new String[0]);
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        this.n = n;
+        int p = 1;
+        for (int i = 0; i < n; i++) {
+            p *= BASE;
+        }
+        this.power = p;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public String[] tokenize(String input) {
+        int length = normalize(applyNormalizer(input));
+        if (length == 0) {
+            return new String[0];
+        }
+        if (length <= n) {
+            return new String[]{new String(normalized, 0, length)};
+        }
+        String[] grams = new String[length - n + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = new String(normalized, i, n);
+        }
+        return grams;
+    }
+
+    /**
+     * @return the rolling hash features of the n-grams of input, in input order and with repeats
+     */
+    public int[] features(CharSequence input) {
+        int length = normalize(applyNormalizer(input));
+        if (length == 0) {
+            return new int[0];
+        }
+        if (length <= n) {
+            return new int[]{toFeature(hash(normalized, 0, length))};
+        }
+        int[] features = new int[length - n + 1];
+        int hash = hash(normalized, 0, n);
+        features[0] = toFeature(hash);
+        for (int i = n; i < length; i++) {
+            hash = hash * BASE + normalized[i] - normalized[i - n] * power;
+            features[i - n + 1] = toFeature(hash);
+        }
+        return features;
+    }
+
+    /**
+     * @return the feature of a single n-gram as returned by {@link #tokenize}
+     */
+    public int feature(CharSequence gram) {
+        int hash = 0;
+        for (int i = 0; i < gram.length(); i++) {
+            hash = hash * BASE + gram.charAt(i);
+        }
+        return toFeature(hash);
+    }
+
+    private static int hash(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = hash * BASE + chars[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Writes the padded, lowercased and collapsed form of input to the scratch buffer.
+     *
+     * @return its length, 0 if input has no letters or digits
+     */
+    private int normalize(CharSequence input) {
+        if (normalized.length < input.length() + 2) {
+            normalized = new char[Math.max(input.length() + 2, normalized.length * 2)];
+        }
+        int length = 0;
+        boolean content = false;
+        normalized[length++] = ' ';
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized[length++] = Character.toLowerCase(c);
+                content = true;
+            } else if (Character.getType(c) != Character.FORMAT && normalized[length - 1] != ' ') {
+                normalized[length++] = ' ';
+            }
+        }
+        if (!content) {
+            return 0;
+        }
+        if (normalized[length - 1] != ' ') {
+            normalized[length++] = ' ';
+        }
+        return length;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this).append("n", n).append("bits", getBits()).toString();
+    }
+}
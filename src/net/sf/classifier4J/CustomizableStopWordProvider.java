@@ -52,17 +52,29 @@
 package net.sf.classifier4J;
 
 import net.sf.classifier4J.util.Resource;
+import net.sf.classifier4J.util.StopWordSet;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+/**
+ * Stop words read from a resource, one on each line. The resource is loaded through
+ * {@link Resource#get(String)} and its parsed words are shared by every provider using it.
+ * <p>
+ * The resource is read once for the life of its class loader, so edits to the file are not seen,
+ * not even by calling {@link #init()} again. Restart to pick them up.
+ */
 public class CustomizableStopWordProvider implements IStopWordProvider {
 
+    // parsed stop words, per shared resource
+    private static final Map<Resource, StopWordSet> parsed = new WeakHashMap<>();
+
     private Resource resource;
-    private String[] words;
+    private StopWordSet words;
 
     public static final String DEFAULT_STOPWORD_PROVIDER_RESOURCENAME = "defaultStopWords.txt";
 
@@ -71,7 +83,7 @@ public class CustomizableStopWordProvider implements IStopWordProvider {
      *                 a list of stop words, one on each line
      */
     public CustomizableStopWordProvider(String resourcename) throws IOException {
-        resource = new Resource(resourcename);
+        resource = Resource.get(resourcename);
 
         init();
     }
@@ -80,25 +92,40 @@ public class CustomizableStopWordProvider implements IStopWordProvider {
         this(DEFAULT_STOPWORD_PROVIDER_RESOURCENAME);
     }
 
+    /**
+     * Loads the stop words of the resource, reusing them if any provider parsed them before.
+     */
     protected void init() throws IOException {
+        synchronized (parsed) {
+            words = parsed.get(resource);
+            if (words != null) {
+                return;
+            }
+        }
+
         ArrayList wordsLst = new ArrayList();
-        BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream()));
+        BufferedReader reader = new BufferedReader(new StringReader(resource.getText()));
 
         String word;
         while ((word = reader.readLine()) != null) {
             wordsLst.add(word.trim());
         }
 
-        words = (String[]) wordsLst.toArray(new String[wordsLst.size()]);
-
-        Arrays.sort(words);
+        words = new StopWordSet((String[]) wordsLst.toArray(new String[wordsLst.size()]));
+        synchronized (parsed) {
+            parsed.put(resource, words);
+        }
     }
 
     /**
      * @see net.sf.classifier4J.IStopWordProvider#isStopWord(java.lang.String)
      */
     public boolean isStopWord(String word) {
-        return (Arrays.binarySearch(words, word) >= 0);
+        return words.contains(word);
+    }
+
+    public boolean isStopWord(CharSequence text, int start, int end) {
+        return words.contains(text, start, end);
     }
 
 }
@@ -51,29 +51,40 @@
 
 package net.sf.classifier4J;
 
+import net.sf.classifier4J.util.StopWordSet;
 import net.sf.classifier4J.util.ToStringBuilder;
 
-import java.util.Arrays;
-
 
 /**
  * @author Nick Lothian
  * @author Peter Leschev
  */
 public class DefaultStopWordsProvider implements IStopWordProvider {
-    // This array is sorted in the constructor
     private String[] stopWords = {"a", "and", "the", "me", "i", "of", "if", "it", "is", "they", "there", "but", "or", "to", "this", "you", "in", "your", "on", "for", "as", "are", "that", "with", "have", "be", "at", "or", "was", "so", "out", "not", "an"};
-    private String[] sortedStopWords = null;
+    private StopWordSet stopWordSet = null;
+    // compiled from the stop words above once, for every instance of this class itself
+    private static StopWordSet sharedStopWordSet = null;
 
     public DefaultStopWordsProvider() {
-        sortedStopWords = getStopWords();
-        Arrays.sort(sortedStopWords);
+        if (getClass() == DefaultStopWordsProvider.class) {
+            stopWordSet = getSharedStopWordSet(getStopWords());
+        } else {
+            // subclasses may override getStopWords
+            stopWordSet = new StopWordSet(getStopWords());
+        }
+    }
+
+    private static synchronized StopWordSet getSharedStopWordSet(String[] stopWords) {
+        if (sharedStopWordSet == null) {
+            sharedStopWordSet = new StopWordSet(stopWords);
+        }
+        return sharedStopWordSet;
     }
 
     /**
      * getter method which can be overridden to
      * supply the stop words. The array returned by this
-     * method is sorted and then used internally
+     * method is compiled into a {@link StopWordSet} which is used internally
      *
      * @return the array of stop words
      */
@@ -85,16 +96,14 @@ public class DefaultStopWordsProvider implements IStopWordProvider {
      * @see net.sf.classifier4J.IStopWordProvider#isStopWord(java.lang.String)
      */
     public boolean isStopWord(String word) {
-        if (word == null || "".equals(word)) {
-            return false;
-        } else {
-            // search the sorted array for the word, converted to lowercase
-            // if it is found, the index will be >= 0
-            return (Arrays.binarySearch(sortedStopWords, word.toLowerCase()) >= 0);
-        }
+        return stopWordSet.contains(word);
+    }
+
+    public boolean isStopWord(CharSequence text, int start, int end) {
+        return stopWordSet.contains(text, start, end);
     }
 
     public String toString() {
-        return new ToStringBuilder(this).append("stopWords.size()", sortedStopWords.length).toString();
+        return new ToStringBuilder(this).append("stopWords.size()", stopWordSet.size()).toString();
     }
 }
\ No newline at end of file
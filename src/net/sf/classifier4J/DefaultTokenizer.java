@@ -52,13 +52,18 @@ package net.sf.classifier4J;
 
 import net.sf.classifier4J.util.ToStringBuilder;
 
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 /**
  * @author Peter Leschev
  */
 public class DefaultTokenizer implements ITokenizer {
 
     /**
-     * Use a the "\W" (non-word characters) regexp to split the string passed to classify
+     * Split the string passed to classify on non-word characters, like the "\W" regexp but with letters
+     * and digits of every script counting as word characters
      */
     public static int BREAK_ON_WORD_BREAKS = 1;
 
@@ -69,6 +74,8 @@ public class DefaultTokenizer implements ITokenizer {
 
     private int tokenizerConfig = -1;
     private String customTokenizerRegExp = null;
+    // customTokenizerRegExp compiled, on first use
+    private Pattern customTokenizerPattern = null;
 
     /**
      * Constructor that using the BREAK_ON_WORD_BREAKS tokenizer config by default
@@ -113,6 +120,7 @@ public class DefaultTokenizer implements ITokenizer {
         }
 
         customTokenizerRegExp = string;
+        customTokenizerPattern = null;
     }
 
     /**
@@ -129,27 +137,80 @@ public class DefaultTokenizer implements ITokenizer {
         tokenizerConfig = tokConfig;
     }
 
+    /**
+     * Adapts {@link #tokenize(CharSequence, ITokenHandler)}, so no empty tokens are returned.
+     */
     public String[] tokenize(String input) {
+        if (input == null) {
+            return new String[0];
+        }
 
-        String regexp = "";
+        ArrayList<String> words = new ArrayList<>();
+        tokenize(input, (text, start, end) -> words.add(text.subSequence(start, end).toString()));
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Splits input where the regular expression would, but with the two built in configurations
+     * the characters are classified directly instead of matching a regular expression.
+     */
+    public void tokenize(CharSequence input, ITokenHandler handler) {
+        if (input == null) {
+            return;
+        }
 
         if (customTokenizerRegExp != null) {
-            regexp = customTokenizerRegExp;
-        } else if (tokenizerConfig == BREAK_ON_WORD_BREAKS) {
-            regexp = "\\W";
-        } else if (tokenizerConfig == BREAK_ON_WHITESPACE) {
-            regexp = "\\s";
-        } else {
+            Pattern pattern = customTokenizerPattern;
+            if (pattern == null) {
+                pattern = Pattern.compile(customTokenizerRegExp);
+                customTokenizerPattern = pattern;
+            }
+            Matcher matcher = pattern.matcher(input);
+            int start = 0;
+            while (matcher.find()) {
+                if (matcher.start() > start) {
+                    handler.token(input, start, matcher.start());
+                }
+                start = Math.max(start, matcher.end());
+            }
+            if (start < input.length()) {
+                handler.token(input, start, input.length());
+            }
+            return;
+        }
+
+        if (tokenizerConfig != BREAK_ON_WORD_BREAKS && tokenizerConfig != BREAK_ON_WHITESPACE) {
             throw new IllegalStateException("Illegal tokenizer configuration. customTokenizerRegExp = null & tokenizerConfig = " + tokenizerConfig);
         }
 
-        if (input != null) {
-            String[] words = input.split(regexp);
-            return words;
+        int start = -1;
+        for (int i = 0, length = input.length(); i < length; i++) {
+            if (isTokenChar(input.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                handler.token(input, start, i);
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            handler.token(input, start, input.length());
+        }
+    }
 
-        } else {
-            return new String[0];
+    /**
+     * @return true if c is part of a token with the tokenizer config, false if it is whitespace or, when
+     * breaking on word breaks, neither a letter, a digit nor '_', the same words {@link FeatureHasher} hashes
+     */
+    protected boolean isTokenChar(char c) {
+        if (tokenizerConfig == BREAK_ON_WHITESPACE) {
+            return !(c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r');
+        }
+        if (c < 0x80) {
+            return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
         }
+        return Character.isLetterOrDigit(c);
     }
 
     public String toString() {
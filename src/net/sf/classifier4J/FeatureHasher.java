@@ -0,0 +1,188 @@
+package net.sf.classifier4J;
+
+import net.sf.classifier4J.util.MurmurHash3;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Maps words straight to feature indices in [0, 2<sup>bits</sup>) without building a vocabulary.
+ * The input is scanned once, each run of letters, digits and '_' is lowercased into a reusable buffer and
+ * hashed with {@link MurmurHash3}, so no String is created per word and nothing has to remember the words.
+ * Different words may share an index, with n distinct words the chance that a given word collides with
+ * another is about n / 2<sup>bits</sup>.
+ * <p>
+ * Stop words are hashed once up front and dropped by index, a word sharing its index with a stop word is
+ * dropped as well. Instances keep a scratch buffer and are not thread-safe.
+ * <p>
+ * With a phrase length of 2 or 3 every pair (and triple) of adjacent words, stop words included, adds a
+ * feature of its own. The 32 bit hashes of the words are packed into a 64 bit key which is mixed down to
+ * a feature index, so phrases cost no more than words and no joined Strings are built.
+ * <p>
+ * With a {@link TextNormalizer} set, input is normalized before words are taken from it.
+ * <p>
+ * Subclasses may extract other features by overriding {@link #features} and {@link #feature} together,
+ * see {@link CharacterNGramTokenizer}.
+ */
+public class FeatureHasher {
+
+    private static final int SEED = 0x9747b28c;
+    // keeps pair and triple keys apart
+    private static final long TRIPLE = 0x9e3779b97f4a7c15L;
+
+    private final int bits;
+    private final int mask;
+    private final int phraseLength;
+    private final int[] stopFeatures;
+    private char[] word = new char[32];
+    private CharBuffer wordView = CharBuffer.wrap(word);
+    private int[] features = new int[64];
+    private int count;
+    private TextNormalizer normalizer;
+
+    /**
+     * Uses the stop words of {@link DefaultStopWordsProvider}.
+     */
+    public FeatureHasher(int bits) {
+        this(bits, new DefaultStopWordsProvider().getStopWords());
+    }
+
+    /**
+     * @param bits between 1 and 30, the number of features is 2<sup>bits</sup>
+     */
+    public FeatureHasher(int bits, String[] stopWords) {
+        this(bits, stopWords, 1);
+    }
+
+    /**
+     * @param phraseLength 1 for single words only, 2 to add pairs of adjacent words, 3 to add triples as well
+     */
+    public FeatureHasher(int bits, String[] stopWords, int phraseLength) {
+        if (bits < 1 || bits > 30) {
+            throw new IllegalArgumentException("bits must be between 1 and 30");
+        }
+        if (phraseLength < 1 || phraseLength > 3) {
+            throw new IllegalArgumentException("phraseLength must be between 1 and 3");
+        }
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.phraseLength = phraseLength;
+        int[] stop = new int[stopWords.length];
+        for (int i = 0; i < stopWords.length; i++) {
+            stop[i] = wordFeature(stopWords[i]);
+        }
+        Arrays.sort(stop);
+        this.stopFeatures = stop;
+    }
+
+    public int getBits() {
+        return bits;
+    }
+
+    public int getPhraseLength() {
+        return phraseLength;
+    }
+
+    /**
+     * @return the number of distinct feature indices, 2<sup>bits</sup>
+     */
+    public int getFeatureCount() {
+        return mask + 1;
+    }
+
+    public TextNormalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * @param normalizer applied to the input of {@link #features}, null for none
+     */
+    public void setNormalizer(TextNormalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * @return input as normalized by the normalizer, if one is set
+     */
+    protected CharSequence applyNormalizer(CharSequence input) {
+        return normalizer == null ? input : normalizer.normalize(input);
+    }
+
+    /**
+     * @return hash reduced to a feature index
+     */
+    protected int toFeature(int hash) {
+        return MurmurHash3.fmix(hash) & mask;
+    }
+
+    /**
+     * @return the feature index of a single word, which is lowercased first but not normalized
+     */
+    public int feature(CharSequence text) {
+        return wordFeature(text);
+    }
+
+    private int wordFeature(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            length = appendLowerCase(length, text.charAt(i));
+        }
+        return hash(length);
+    }
+
+    /**
+     * @return the feature indices of the words in input that are not stop words and of its phrases,
+     * in input order and with repeats
+     */
+    public int[] features(CharSequence input) {
+        input = applyNormalizer(input);
+        count = 0;
+        int length = 0;
+        int words = 0;
+        int previous = 0;
+        int beforePrevious = 0;
+        for (int i = 0, n = input.length(); i <= n; i++) {
+            char c = i < n ? input.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c) || c == '_') {
+                length = appendLowerCase(length, c);
+            } else if (length > 0) {
+                int hash = MurmurHash3.hash32(wordView, 0, length, SEED);
+                length = 0;
+                words++;
+                if (Arrays.binarySearch(stopFeatures, hash & mask) < 0) {
+                    add(hash & mask);
+                }
+                if (phraseLength >= 2 && words >= 2) {
+                    long pair = ((long) previous << 32) | (hash & 0xffffffffL);
+                    add((int) MurmurHash3.fmix64(pair) & mask);
+                    if (phraseLength >= 3 && words >= 3) {
+                        add((int) MurmurHash3.fmix64(pair * TRIPLE + beforePrevious) & mask);
+                    }
+                }
+                beforePrevious = previous;
+                previous = hash;
+            }
+        }
+        return Arrays.copyOf(features, count);
+    }
+
+    private void add(int feature) {
+        if (count == features.length) {
+            features = Arrays.copyOf(features, count * 2);
+        }
+        features[count++] = feature;
+    }
+
+    private int appendLowerCase(int length, char c) {
+        if (length == word.length) {
+            word = Arrays.copyOf(word, length * 2);
+            wordView = CharBuffer.wrap(word);
+        }
+        word[length] = Character.toLowerCase(c);
+        return length + 1;
+    }
+
+    private int hash(int length) {
+        return MurmurHash3.hash32(wordView, 0, length, SEED) & mask;
+    }
+}
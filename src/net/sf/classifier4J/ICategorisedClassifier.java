@@ -70,6 +70,21 @@ public interface ICategorisedClassifier extends IClassifier {
      */
     public double classify(String category, String input) throws ClassifierException;
 
+    /**
+     * Function to determine the probability a message matches a criteria for a given
+     * category, reusing the tokens of the message computed for other classifiers or categories.
+     * By default the text of the message is classified.
+     *
+     * @param category the category to check against
+     * @param message  the analysis of the message to classify
+     * @return the likelyhood that this message is a match for this net.sf.classifier4J. 1 means 100% likely.
+     * @throws ClassifierException If a fatal problem occurs. For example,
+     *                             the database is unavailable.
+     */
+    public default double classify(String category, MessageAnalysis message) throws ClassifierException {
+        return classify(category, message.getText());
+    }
+
     /**
      * Function to determine if a string matches a criteria for a given category
      *
@@ -0,0 +1,24 @@
+package net.sf.classifier4J;
+
+/**
+ * Implemented by data sources and storages that can report how large they are.
+ * The values are maintained as the model is trained, so every method is cheap enough
+ * to call on each message or metrics scrape.
+ */
+public interface IModelSize {
+
+    /**
+     * @return the number of terms held, summed over all categories
+     */
+    public long getTermCount();
+
+    /**
+     * @return the number of categories held
+     */
+    public int getCategoryCount();
+
+    /**
+     * @return an estimate of the heap retained by the model in bytes, see {@link net.sf.classifier4J.util.MemoryEstimator}
+     */
+    public long getEstimatedBytes();
+}
@@ -59,4 +59,12 @@ public interface IStopWordProvider {
      * @return true if the word is a stop word, false otherwise
      */
     public boolean isStopWord(String word);
+
+    /**
+     * Check if the characters of text from start to end, exclusive, are a stop word.
+     * Implementations should override this to avoid creating the substring.
+     */
+    default boolean isStopWord(CharSequence text, int start, int end) {
+        return isStopWord(text.subSequence(start, end).toString());
+    }
 }
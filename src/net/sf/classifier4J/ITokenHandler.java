@@ -0,0 +1,15 @@
+package net.sf.classifier4J;
+
+/**
+ * Receives tokens from {@link ITokenizer#tokenize(CharSequence, ITokenHandler)} as spans of a character sequence.
+ * The sequence may be the input or a buffer of the tokenizer, it is only valid until the call returns.
+ */
+public interface ITokenHandler {
+
+    /**
+     * @param text  holds the token
+     * @param start the index of the first character of the token in text
+     * @param end   the index after the last character of the token in text
+     */
+    public void token(CharSequence text, int start, int end);
+}
@@ -64,4 +64,20 @@ public interface ITokenizer {
      */
     public String[] tokenize(String input);
 
+    /**
+     * <p>Passes each token of input to handler as a span, in input order. Unlike
+     * {@link #tokenize(String)} no empty tokens are passed, and tokenizers that
+     * implement this themselves create no String per token.</p>
+     *
+     * <p>By default this adapts {@link #tokenize(String)}.</p>
+     */
+    public default void tokenize(CharSequence input, ITokenHandler handler) {
+        String[] tokens = tokenize(input == null ? null : input.toString());
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i].length() > 0) {
+                handler.token(tokens[i], 0, tokens[i].length());
+            }
+        }
+    }
+
 }
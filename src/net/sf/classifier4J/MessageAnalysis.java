@@ -0,0 +1,91 @@
+package net.sf.classifier4J;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The analysis of one message, shared by every classifier that scores it through
+ * {@link ICategorisedClassifier#classify(String, MessageAnalysis)}.
+ * The tokens, hashed features and word frequencies are computed on first use and kept per tokenizer
+ * or {@link FeatureHasher} instance, so a message is tokenized once however many classifiers and
+ * categories score it. Tokenizers that normalize their input cache the normalized tokens.
+ * <p>
+ * The returned arrays and maps are shared and must not be modified. Instances are not thread-safe,
+ * they are meant to live for the handling of one message.
+ */
+public class MessageAnalysis {
+
+    private final String text;
+    private final Map<ITokenizer, String[]> tokens = new IdentityHashMap<>(4);
+    private final Map<FeatureHasher, int[]> features = new IdentityHashMap<>(4);
+    private final Map<FeatureHasher, int[]> sortedFeatures = new IdentityHashMap<>(4);
+    private final Map<ITokenizer, Map<IStopWordProvider, Map<String, Integer>>> wordFrequencies = new IdentityHashMap<>(4);
+
+    public MessageAnalysis(String text) {
+        if (text == null) {
+            throw new IllegalArgumentException("text cannot be null");
+        }
+        this.text = text;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    /**
+     * @return the text split by tokenizer
+     */
+    public String[] getTokens(ITokenizer tokenizer) {
+        String[] result = tokens.get(tokenizer);
+        if (result == null) {
+            result = tokenizer.tokenize(text);
+            tokens.put(tokenizer, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the features of the text by hasher, in text order
+     */
+    public int[] getFeatures(FeatureHasher hasher) {
+        int[] result = features.get(hasher);
+        if (result == null) {
+            result = hasher.features(text);
+            features.put(hasher, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the features of the text by hasher, sorted
+     */
+    public int[] getSortedFeatures(FeatureHasher hasher) {
+        int[] result = sortedFeatures.get(hasher);
+        if (result == null) {
+            result = getFeatures(hasher).clone();
+            Arrays.sort(result);
+            sortedFeatures.put(hasher, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the case insensitive word frequencies of the tokens of {@link #getTokens(ITokenizer)}, which equal those
+     * of {@link Utilities#getWordFrequency(String, boolean, ITokenizer, IStopWordProvider)} for tokenizers that split
+     * text the same whatever its case
+     */
+    public Map<String, Integer> getWordFrequency(ITokenizer tokenizer, IStopWordProvider stopWordProvider) {
+        Map<IStopWordProvider, Map<String, Integer>> byProvider = wordFrequencies.computeIfAbsent(tokenizer, t -> new IdentityHashMap<>(2));
+        Map<String, Integer> result = byProvider.get(stopWordProvider);
+        if (result == null) {
+            result = Utilities.getWordFrequency(getTokens(tokenizer), false, stopWordProvider);
+            byProvider.put(stopWordProvider, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,42 @@
+package net.sf.classifier4J;
+
+import net.sf.classifier4J.util.ToStringBuilder;
+
+/**
+ * Passes input through a {@link TextNormalizer} before the wrapped tokenizer splits it.
+ * Not thread-safe, as the normalizer is not.
+ */
+public class NormalizingTokenizer implements ITokenizer {
+
+    private final ITokenizer tokenizer;
+    private final TextNormalizer normalizer;
+
+    public NormalizingTokenizer(ITokenizer tokenizer) {
+        this(tokenizer, new TextNormalizer());
+    }
+
+    public NormalizingTokenizer(ITokenizer tokenizer, TextNormalizer normalizer) {
+        this.tokenizer = tokenizer;
+        this.normalizer = normalizer;
+    }
+
+    public String[] tokenize(String input) {
+        if (input == null) {
+            return new String[0];
+        }
+        return tokenizer.tokenize(normalizer.normalize(input).toString());
+    }
+
+    /**
+     * Passes the normalizer's buffer to the wrapped tokenizer without copying it.
+     */
+    public void tokenize(CharSequence input, ITokenHandler handler) {
+        if (input != null) {
+            tokenizer.tokenize(normalizer.normalize(input), handler);
+        }
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this).append("tokenizer", tokenizer).toString();
+    }
+}
@@ -51,23 +51,33 @@
 
 package net.sf.classifier4J;
 
-import java.util.Stack;
-
 /**
  * <p>Simple HTML Tokenizer. Its goal is to tokenize words that would be displayed
  * in a normal web browser.</p>
  *
  * <p>It does not handle meta tags, alt or text attributes, but it does remove
- * CSS style definitions and javascript code.</p>
+ * CSS style definitions, javascript code and comments.</p>
+ *
+ * <p>The input is read once by a small state machine which skips tags, comments and the
+ * contents of script and style elements, decodes entity references and splits the text into
+ * tokens as it goes, without building the visible text first. Formatting tags such as
+ * &lt;b&gt; or &lt;span&gt; do not break words, as in a browser, other tags do.
+ * Numeric entity references and &amp;amp;, &amp;lt;, &amp;gt;, &amp;quot; and &amp;apos;
+ * are decoded, other entity references are passed to {@link #resolveEntities(String)} one at a time,
+ * which replaces them with a space(!!). This can be overridden.</p>
  *
- * <p>It handles entity references by replacing them with a space(!!). This can be
- * overridden.</p>
+ * <p>Tokens are split as {@link DefaultTokenizer} would split the visible text. With a custom
+ * regular expression the visible text is built and split by it. Tokens passed to an
+ * {@link ITokenHandler} are spans of one buffer reused for every token.</p>
  *
  * @author Nick Lothian
  * @since 18 Nov 2003
  */
 public class SimpleHTMLTokenizer extends DefaultTokenizer {
 
+    // tags that do not break words
+    private static final String[] INLINE_TAGS = {"a", "abbr", "b", "big", "code", "em", "font", "i", "mark", "s", "small", "span", "strike", "strong", "sub", "sup", "tt", "u"};
+
     /**
      * Constructor that using the BREAK_ON_WORD_BREAKS tokenizer config by default
      */
@@ -84,7 +94,8 @@ public class SimpleHTMLTokenizer extends DefaultTokenizer {
     }
 
     /**
-     * Replaces entity references with spaces
+     * Replaces entity references with spaces. Called with a single named entity reference such as
+     * "&amp;eacute;" for each reference the tokenizer does not decode itself, its result is read as visible text.
      *
      * @param contentsWithUnresolvedEntityReferences the contents with the entity references
      * @return the contents with the entities replaces with spaces
@@ -98,58 +109,207 @@ public class SimpleHTMLTokenizer extends DefaultTokenizer {
     }
 
     /**
-     * @see net.sf.classifier4J.ITokenizer#tokenize(java.lang.String)
+     * Input that is not a String is copied to one first.
+     *
+     * @see net.sf.classifier4J.ITokenizer#tokenize(java.lang.CharSequence, net.sf.classifier4J.ITokenHandler)
      */
-    public String[] tokenize(String input) {
-        Stack stack = new Stack();
-        Stack tagStack = new Stack();
+    public void tokenize(CharSequence input, ITokenHandler handler) {
+        if (input == null) {
+            return;
+        }
+
+        if (getCustomTokenizerRegExp() != null) {
+            StringBuilder text = new StringBuilder(input.length());
+            scan(input.toString(), text, null);
+            super.tokenize(text.toString().trim(), handler);
+            return;
+        }
 
-        // iterate over the input string and parse find text that would be displayed
-        char[] chars = input.toCharArray();
+        scan(input.toString(), new StringBuilder(), handler);
+    }
 
-        StringBuffer result = new StringBuffer();
+    /**
+     * Runs the state machine over input. With handler null every visible character is appended
+     * to buffer and tags that break words append a space, otherwise buffer holds the current
+     * token and complete tokens are passed to handler.
+     */
+    private void scan(String input, StringBuilder buffer, ITokenHandler handler) {
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (c == '<' && i + 1 < length && startsMarkup(input.charAt(i + 1))) {
+                if (input.startsWith("<!--", i)) {
+                    int end = input.indexOf("-->", i + 4);
+                    i = end < 0 ? length : end + 3;
+                    continue;
+                }
 
-        StringBuffer currentTagName = new StringBuffer();
-        for (int i = 0; i < chars.length; i++) {
+                boolean closing = input.charAt(i + 1) == '/';
+                int nameStart = closing ? i + 2 : i + 1;
+                int nameEnd = nameStart;
+                while (nameEnd < length && isNameChar(input.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                int tagEnd = tagEnd(input, nameEnd);
+                boolean selfClosing = tagEnd > 0 && input.charAt(tagEnd - 1) == '/';
+                if (!isInline(input, nameStart, nameEnd)) {
+                    separator(buffer, handler);
+                }
+                i = tagEnd + 1;
 
-            switch (chars[i]) {
-                case '<':
-                    stack.push(Boolean.TRUE);
-                    currentTagName = new StringBuffer();
-                    break;
-                case '>':
-                    stack.pop();
-                    if (currentTagName != null) {
-                        String currentTag = currentTagName.toString();
-
-                        if (currentTag.startsWith("/")) {
-                            tagStack.pop();
-                        } else {
-
-                            tagStack.push(currentTag.toLowerCase());
-                        }
-                    }
-                    break;
-                default:
-                    if (stack.size() == 0) {
-                        String currentTag = (String) tagStack.peek();
-                        // ignore everything inside <script></script> or <style></style> tags
-                        if (currentTag != null) {
-                            if (!(currentTag.startsWith("script") || currentTag.startsWith("style"))) {
-                                result.append(chars[i]);
-                            }
-                        } else {
-                            result.append(chars[i]);
-                        }
-
-                    } else {
-                        currentTagName.append(chars[i]);
-                    }
+                // the contents of script and style are not displayed, skip to the closing tag
+                if (!closing && !selfClosing && (nameIs(input, nameStart, nameEnd, "script") || nameIs(input, nameStart, nameEnd, "style"))) {
+                    i = skipRawText(input, i, nameStart, nameEnd);
+                }
+            } else if (c == '&') {
+                i = entity(input, i, buffer, handler);
+            } else {
+                visible(c, buffer, handler);
+                i++;
+            }
+        }
+        separator(buffer, handler);
+    }
+
+    /**
+     * @return the index of the '&gt;' ending the tag whose name ends at from, or the input length
+     */
+    private static int tagEnd(String input, int from) {
+        char quote = 0;
+        for (int i = from; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return input.length();
+    }
+
+    /**
+     * @return the index after the tag closing the raw text element whose name is at nameStart, or the input length
+     */
+    private static int skipRawText(String input, int from, int nameStart, int nameEnd) {
+        int nameLength = nameEnd - nameStart;
+        for (int i = input.indexOf("</", from); i >= 0; i = input.indexOf("</", i + 2)) {
+            if (input.regionMatches(true, i + 2, input, nameStart, nameLength)
+                    && (i + 2 + nameLength == input.length() || !isNameChar(input.charAt(i + 2 + nameLength)))) {
+                return tagEnd(input, i + 2 + nameLength) + 1;
+            }
+        }
+        return input.length();
+    }
+
+    /**
+     * Decodes the entity reference at from, if there is one.
+     *
+     * @return the index after it, or after the '&amp;' if it is not an entity reference
+     */
+    private int entity(String input, int from, StringBuilder buffer, ITokenHandler handler) {
+        int semicolon = -1;
+        // names of up to 8 characters, as resolveEntities expects
+        for (int i = from + 1; i < input.length() && i <= from + 9; i++) {
+            char c = input.charAt(i);
+            if (c == ';') {
+                semicolon = i;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '#') {
+                break;
+            }
+        }
+        if (semicolon < from + 3) {
+            // "&" on its own, or "&;" and "&x;" which are too short to be references
+            visible('&', buffer, handler);
+            return from + 1;
+        }
+
+        int codePoint = ' ';
+        if (input.charAt(from + 1) == '#') {
+            boolean hex = input.charAt(from + 2) == 'x' || input.charAt(from + 2) == 'X';
+            int value = 0;
+            for (int i = from + (hex ? 3 : 2); i < semicolon; i++) {
+                int digit = Character.digit(input.charAt(i), hex ? 16 : 10);
+                if (digit < 0 || value > Character.MAX_CODE_POINT) {
+                    value = -1;
                     break;
+                }
+                value = value * (hex ? 16 : 10) + digit;
+            }
+            if (value > 0 && value <= Character.MAX_CODE_POINT) {
+                codePoint = value;
+            }
+        } else if (nameIs(input, from + 1, semicolon, "amp")) {
+            codePoint = '&';
+        } else if (nameIs(input, from + 1, semicolon, "lt")) {
+            codePoint = '<';
+        } else if (nameIs(input, from + 1, semicolon, "gt")) {
+            codePoint = '>';
+        } else if (nameIs(input, from + 1, semicolon, "quot")) {
+            codePoint = '"';
+        } else if (nameIs(input, from + 1, semicolon, "apos")) {
+            codePoint = '\'';
+        } else {
+            String resolved = resolveEntities(input.substring(from, semicolon + 1));
+            for (int i = 0; i < resolved.length(); i++) {
+                visible(resolved.charAt(i), buffer, handler);
+            }
+            return semicolon + 1;
+        }
+
+        if (Character.isSupplementaryCodePoint(codePoint)) {
+            visible(Character.highSurrogate(codePoint), buffer, handler);
+            visible(Character.lowSurrogate(codePoint), buffer, handler);
+        } else {
+            visible((char) codePoint, buffer, handler);
+        }
+        return semicolon + 1;
+    }
+
+    private void visible(char c, StringBuilder buffer, ITokenHandler handler) {
+        if (handler == null || isTokenChar(c)) {
+            buffer.append(c);
+        } else {
+            separator(buffer, handler);
+        }
+    }
+
+    private static void separator(StringBuilder buffer, ITokenHandler handler) {
+        if (handler == null) {
+            if (buffer.length() > 0 && buffer.charAt(buffer.length() - 1) != ' ') {
+                buffer.append(' ');
+            }
+        } else if (buffer.length() > 0) {
+            handler.token(buffer, 0, buffer.length());
+            buffer.setLength(0);
+        }
+    }
+
+    private static boolean startsMarkup(char c) {
+        return c == '/' || c == '!' || c == '?' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isNameChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '-' || c == ':';
+    }
+
+    private static boolean isInline(String input, int nameStart, int nameEnd) {
+        for (String tag : INLINE_TAGS) {
+            if (nameIs(input, nameStart, nameEnd, tag)) {
+                return true;
             }
         }
+        return false;
+    }
 
-        return super.tokenize(resolveEntities(result.toString()).trim());
+    private static boolean nameIs(String input, int start, int end, String name) {
+        return end - start == name.length() && input.regionMatches(true, start, name, 0, name.length());
     }
 
 }
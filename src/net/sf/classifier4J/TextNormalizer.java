@@ -0,0 +1,151 @@
+package net.sf.classifier4J;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Folds text to a canonical form before it is tokenized, so that spam written with lookalike characters
+ * shares its tokens with the plain spelling: "free" written in fullwidth letters, in small capitals, with Cyrillic
+ * e's or with a zero-width space inside all become "free".
+ * <p>
+ * Each character is mapped through one table holding, for every character of the Basic Multilingual Plane,
+ * the result of these steps:
+ * <ul>
+ * <li>NFKC, which folds fullwidth, circled, superscript and ligature forms to their plain letters</li>
+ * <li>accents are removed from Latin, Greek and Cyrillic letters, combining diacritical marks and
+ * variation selectors on their own are dropped</li>
+ * <li>Cyrillic, Greek and phonetic letters that look like Latin letters are replaced by those letters</li>
+ * <li>lowercasing</li>
+ * <li>format characters such as zero-width spaces, joiners and soft hyphens are dropped</li>
+ * </ul>
+ * The table is built from {@link Normalizer} once, on first use, after which normalizing is a single scan
+ * with one array lookup per character. The few characters that expand to more than one character, and
+ * characters outside the Basic Multilingual Plane such as the mathematical alphabets, take a slower path.
+ * <p>
+ * Characters are folded one at a time, so text is not composed as a whole: a letter followed by a
+ * combining accent loses the accent, as the precomposed letter does. Instances keep a scratch buffer
+ * and are not thread-safe.
+ */
+public class TextNormalizer {
+
+    private static final char DROP = '\uffff';
+    private static final char EXPANDS = '\ufffe';
+
+    /**
+     * Pairs of a character and the Latin letter it is mistaken for, a subset of the Unicode confusables.
+     */
+    private static final String CONFUSABLES =
+            // Cyrillic
+            "\u0430a\u0432b\u0433r\u0435e\u043ak\u043cm\u043dh\u043eo\u043fn\u0440p\u0441c\u0442t\u0443y\u0445x\u044cb"
+                    + "\u0455s\u0456i\u0458j\u04bbh\u04cfl\u0501d\u051bq\u051dw\u0461w\u0475v\u04afy"
+                    + "\u0410a\u0412b\u0415e\u041ak\u041cm\u041dh\u041eo\u0420p\u0421c\u0422t\u0423y\u0425x"
+                    + "\u0405s\u0406i\u0408j\u04aey\u04c0l\u051aq\u051cw"
+                    // Greek
+                    + "\u03b1a\u03b2b\u03b3y\u03b5e\u03b7n\u03b9i\u03bak\u03bdv\u03bfo\u03c1p\u03c4t\u03c5u\u03c7x\u03c9w"
+                    + "\u0391a\u0392b\u0395e\u0396z\u0397h\u0399i\u039ak\u039cm\u039dn\u039fo\u03a1p\u03a4t\u03a5y\u03a7x"
+                    // Latin, IPA and small capitals
+                    + "\u0131i\u0237j\u0251a\u0261g\u0269i\u026ai\u028fy\u1d00a\u0299b\u1d04c\u1d05d\u1d07e\ua730f"
+                    + "\u0262g\u029ch\u1d0aj\u1d0bk\u029fl\u1d0dm\u0274n\u1d0fo\u1d18p\u0280r\ua731s\u1d1bt\u1d1cu"
+                    + "\u1d20v\u1d21w\u1d22z\u0196l\u01c0l";
+
+    // accents are only removed from letters below the Armenian block
+    private static final char LAST_ACCENT_FOLDED = '\u052f';
+
+    private static final class Tables {
+        private static final char[] FOLD = new char[Character.MAX_VALUE + 1];
+        // the characters marked EXPANDS in FOLD, sorted, and what they expand to
+        private static final char[] EXPANDING;
+        private static final String[] EXPANSIONS;
+
+        static {
+            List<Character> expanding = new ArrayList<>();
+            List<String> expansions = new ArrayList<>();
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (Character.isSurrogate((char) c)) {
+                    FOLD[c] = (char) c;
+                    continue;
+                }
+                String folded = fold(String.valueOf((char) c));
+                if (folded.isEmpty()) {
+                    FOLD[c] = DROP;
+                } else if (folded.length() == 1 && folded.charAt(0) != DROP && folded.charAt(0) != EXPANDS) {
+                    FOLD[c] = folded.charAt(0);
+                } else {
+                    FOLD[c] = EXPANDS;
+                    expanding.add((char) c);
+                    expansions.add(folded);
+                }
+            }
+            EXPANDING = new char[expanding.size()];
+            for (int i = 0; i < EXPANDING.length; i++) {
+                EXPANDING[i] = expanding.get(i);
+            }
+            EXPANSIONS = expansions.toArray(new String[0]);
+        }
+    }
+
+    // folded supplementary code points, few distinct ones occur in practice
+    private static final ConcurrentHashMap<Integer, String> SUPPLEMENTARY = new ConcurrentHashMap<>();
+
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * @return the normalized form of input, in a buffer that is reused by the next call
+     */
+    public CharSequence normalize(CharSequence input) {
+        char[] table = Tables.FOLD;
+        buffer.setLength(0);
+        for (int i = 0, n = input.length(); i < n; i++) {
+            char c = input.charAt(i);
+            char folded = table[c];
+            if (folded < EXPANDS && !Character.isHighSurrogate(c)) {
+                buffer.append(folded);
+            } else if (folded == EXPANDS) {
+                buffer.append(Tables.EXPANSIONS[Arrays.binarySearch(Tables.EXPANDING, c)]);
+            } else if (folded != DROP) {
+                if (i + 1 < n && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, input.charAt(++i));
+                    buffer.append(SUPPLEMENTARY.computeIfAbsent(codePoint, cp -> fold(new String(Character.toChars(cp)))));
+                } else {
+                    buffer.append(c);
+                }
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * The slow path, folds text through all the steps described above.
+     */
+    static String fold(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        String decomposed = Normalizer.normalize(normalized, Normalizer.Form.NFD);
+        boolean stripAccents = decomposed.charAt(0) <= LAST_ACCENT_FOLDED;
+        StringBuilder folded = new StringBuilder(normalized.length());
+        String source = stripAccents ? decomposed : normalized;
+        for (int i = 0; i < source.length(); ) {
+            int codePoint = source.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isDropped(codePoint) || stripAccents && Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            int confusable = codePoint <= Character.MAX_VALUE ? CONFUSABLES.indexOf(codePoint) : -1;
+            // only characters at even positions are confusables, the odd ones are their Latin letters
+            if (confusable >= 0 && confusable % 2 == 0) {
+                folded.append(CONFUSABLES.charAt(confusable + 1));
+            } else {
+                folded.appendCodePoint(Character.toLowerCase(codePoint));
+            }
+        }
+        return folded.toString();
+    }
+
+    private static boolean isDropped(int codePoint) {
+        return Character.getType(codePoint) == Character.FORMAT
+                || codePoint >= '\u0300' && codePoint <= '\u036f'
+                || codePoint >= '\ufe00' && codePoint <= '\ufe0f';
+    }
+}
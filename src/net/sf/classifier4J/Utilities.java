@@ -87,22 +87,30 @@ public class Utilities {
         }
 
         // tokenize into an array of words
-        String[] words = tokenizer.tokenize(convertedInput);
-        Arrays.sort(words);
-
-        String[] uniqueWords = getUniqueWords(words);
-
-        Map result = new HashMap();
-        for (int i = 0; i < uniqueWords.length; i++) {
-            if (stopWordsProvider == null) {
-                // no stop word provider, so add all words
-                result.put(uniqueWords[i], new Integer(countWords(uniqueWords[i], words)));
-            } else if (isWord(uniqueWords[i]) && !stopWordsProvider.isStopWord(uniqueWords[i])) {
-                // add only words that are not stop words			
-                result.put(uniqueWords[i], new Integer(countWords(uniqueWords[i], words)));
+        return getWordFrequency(tokenizer.tokenize(convertedInput), true, stopWordsProvider);
+    }
+
+    /**
+     * Get a Map of words and the number of each word from words that were already tokenized
+     *
+     * @param words             the tokens to count
+     * @param caseSensitive     true if words should be treated as separate if they have different case
+     * @param stopWordsProvider the provider of the words not to count, or null to count every word
+     */
+    public static Map<String, Integer> getWordFrequency(String[] words, boolean caseSensitive, IStopWordProvider stopWordsProvider) {
+        Map<String, Integer> result = new HashMap<>();
+        for (String word : words) {
+            if (!caseSensitive) {
+                word = word.toLowerCase();
+            }
+            Integer count = result.get(word);
+            if (count != null) {
+                result.put(word, count + 1);
+            } else if (stopWordsProvider == null || isWord(word) && !stopWordsProvider.isStopWord(word)) {
+                // add only words that are not stop words
+                result.put(word, 1);
             }
         }
-
         return result;
     }
 
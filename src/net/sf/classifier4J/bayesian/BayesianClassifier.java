@@ -55,7 +55,9 @@ import net.sf.classifier4J.*;
 import net.sf.classifier4J.util.ToStringBuilder;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>A implementation of {@link net.sf.classifier4J.IClassifier} based on Bayes'
@@ -87,6 +89,7 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
     IWordsDataSource wordsData;
     ITokenizer tokenizer;
     IStopWordProvider stopWordProvider;
+    HashedWordsDataSource hashedWords;
 
     private boolean isCaseSensitive = false;
 
@@ -108,6 +111,18 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
         this(wd, new DefaultTokenizer(DefaultTokenizer.BREAK_ON_WORD_BREAKS));
     }
 
+    /**
+     * Constructor for a BayesianClassifier using the hashing trick. Input is hashed straight into features
+     * by the {@link net.sf.classifier4J.FeatureHasher} of the data source, which also drops the stop words,
+     * instead of being split into Strings. Classification is always case insensitive.
+     *
+     * @param wd a {@link net.sf.classifier4J.bayesian.HashedWordsDataSource}
+     */
+    public BayesianClassifier(HashedWordsDataSource wd) {
+        this(wd, new DefaultTokenizer(DefaultTokenizer.BREAK_ON_WORD_BREAKS));
+        this.hashedWords = wd;
+    }
+
     /**
      * Constructor for BayesianClassifier that specifies a datasource & tokenizer
      *
@@ -147,6 +162,9 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
      * @see net.sf.classifier4J.ICategorisedClassifier#isMatch(java.lang.String, java.lang.String)
      */
     public boolean isMatch(String category, String input) throws WordsDataSourceException {
+        if (hashedWords != null) {
+            return classify(category, input) >= cutoff;
+        }
         return isMatch(category, tokenizer.tokenize(input));
     }
 
@@ -163,9 +181,97 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
 
         checkCategoriesSupported(category);
 
+        if (hashedWords != null) {
+            return classify(category, hashedWords.getFeatureHasher().features(input));
+        }
         return classify(category, tokenizer.tokenize(input));
     }
 
+    /**
+     * @see net.sf.classifier4J.ICategorisedClassifier#classify(java.lang.String, net.sf.classifier4J.MessageAnalysis)
+     */
+    public double classify(String category, MessageAnalysis message) throws WordsDataSourceException {
+        if (category == null) {
+            throw new IllegalArgumentException("category cannot be null");
+        }
+        if (message == null) {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+
+        checkCategoriesSupported(category);
+
+        if (hashedWords != null) {
+            return classify(category, message.getFeatures(hashedWords.getFeatureHasher()));
+        }
+        return classify(category, message.getTokens(tokenizer));
+    }
+
+    /**
+     * Scores input against every category at once. With a {@link MultiCategoryWordsDataSource} each word
+     * is looked up once and its count vector updates the scores of all categories, otherwise only the
+     * default category can be scored.
+     *
+     * @return the probability that input matches, per category, in the order of the categories' indices
+     * @throws UnsupportedOperationException if the data source has categories it cannot list
+     */
+    public Map<String, Double> classifyAll(String input) throws WordsDataSourceException {
+        if (input == null) {
+            throw new IllegalArgumentException("input cannot be null");
+        }
+        return classifyAll(input, null);
+    }
+
+    /**
+     * @see #classifyAll(String)
+     */
+    public Map<String, Double> classifyAll(MessageAnalysis message) throws WordsDataSourceException {
+        if (message == null) {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+        return classifyAll(message.getText(), message);
+    }
+
+    private Map<String, Double> classifyAll(String input, MessageAnalysis message) throws WordsDataSourceException {
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (!(wordsData instanceof MultiCategoryWordsDataSource)) {
+            if (wordsData instanceof ICategorisedWordsDataSource) {
+                throw new UnsupportedOperationException("Word Data Source cannot list its categories.");
+            }
+            result.put(ICategorisedClassifier.DEFAULT_CATEGORY, message != null
+                    ? classify(ICategorisedClassifier.DEFAULT_CATEGORY, message) : classify(ICategorisedClassifier.DEFAULT_CATEGORY, input));
+            return result;
+        }
+
+        MultiCategoryWordsDataSource multiWords = (MultiCategoryWordsDataSource) wordsData;
+        String[] categories = multiWords.getCategories();
+        // the same products as calculateOverallProbability, one pair per category
+        double[] z = new double[categories.length];
+        double[] xy = new double[categories.length];
+        boolean[] found = new boolean[categories.length];
+        String[] words = message != null ? message.getTokens(tokenizer) : tokenizer.tokenize(input);
+        for (int i = 0; i < words.length; i++) {
+            if (!isClassifiableWord(words[i])) {
+                continue;
+            }
+            int[] counts = multiWords.getCounts(transformWord(words[i]));
+            if (counts == null) {
+                continue;
+            }
+            for (int c = 0; c < categories.length; c++) {
+                double probability = MultiCategoryWordsDataSource.getProbability(counts, c);
+                if (probability >= 0) {
+                    z[c] = combine(z[c], 1 - probability);
+                    xy[c] = combine(xy[c], probability);
+                    found[c] = true;
+                }
+            }
+        }
+        for (int c = 0; c < categories.length; c++) {
+            result.put(categories[c], found[c] ? normaliseSignificance(xy[c] / (xy[c] + z[c])) : IClassifier.NEUTRAL_PROBABILITY);
+        }
+        return result;
+    }
+
     public void teachMatch(String category, String input) throws WordsDataSourceException {
         if (category == null) {
             throw new IllegalArgumentException("category cannot be null");
@@ -177,6 +283,10 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
 
         checkCategoriesSupported(category);
 
+        if (hashedWords != null) {
+            teach(category, hashedWords.getFeatureHasher().features(input), true);
+            return;
+        }
         teachMatch(category, tokenizer.tokenize(input));
     }
 
@@ -191,6 +301,10 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
 
         checkCategoriesSupported(category);
 
+        if (hashedWords != null) {
+            teach(category, hashedWords.getFeatureHasher().features(input), false);
+            return;
+        }
         teachNonMatch(category, tokenizer.tokenize(input));
     }
 
@@ -215,6 +329,39 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
         return normaliseSignificance(calculateOverallProbability(wps));
     }
 
+    /**
+     * Combines the probabilities of hashed features the same way {@link #calculateOverallProbability} does.
+     */
+    private double classify(String category, int[] features) {
+        double z = 0d;
+        double xy = 0d;
+        boolean found = false;
+        for (int i = 0; i < features.length; i++) {
+            double probability = hashedWords.getProbability(hashedWords.index(category, features[i]));
+            if (probability >= 0) {
+                z = combine(z, 1 - probability);
+                xy = combine(xy, probability);
+                found = true;
+            }
+        }
+        if (!found) {
+            return IClassifier.NEUTRAL_PROBABILITY;
+        }
+        return normaliseSignificance(xy / (xy + z));
+    }
+
+    private void teach(String category, int[] features, boolean match) {
+        hashedWords.addCategory(category);
+        for (int i = 0; i < features.length; i++) {
+            int index = hashedWords.index(category, features[i]);
+            if (match) {
+                hashedWords.addMatch(index);
+            } else {
+                hashedWords.addNonMatch(index);
+            }
+        }
+    }
+
     protected void teachMatch(String category, String words[]) throws WordsDataSourceException {
         boolean categorise = false;
         if (wordsData instanceof ICategorisedWordsDataSource) {
@@ -290,17 +437,8 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
             double z = 0d;
             double xy = 0d;
             for (int i = 0; i < wps.length; i++) {
-                if (z == 0) {
-                    z = (1 - wps[i].getProbability());
-                } else {
-                    z = z * (1 - wps[i].getProbability());
-                }
-
-                if (xy == 0) {
-                    xy = wps[i].getProbability();
-                } else {
-                    xy = xy * wps[i].getProbability();
-                }
+                z = combine(z, 1 - wps[i].getProbability());
+                xy = combine(xy, wps[i].getProbability());
             }
 
             double numerator = xy;
@@ -310,6 +448,15 @@ public class BayesianClassifier extends AbstractCategorizedTrainableClassifier {
         }
     }
 
+    /**
+     * Multiplies one of the running products of {@link #calculateOverallProbability} by factor.
+     * A product starts at 0 and restarts from factor whenever it is 0, so a product that underflowed does not
+     * stay 0. Every scoring path combines probabilities through this to give the same scores.
+     */
+    static double combine(double product, double factor) {
+        return product == 0 ? factor : product * factor;
+    }
+
     private WordProbability[] calcWordsProbability(String category, String[] words) throws WordsDataSourceException {
         if (category == null) {
             throw new IllegalArgumentException("category cannont be null");
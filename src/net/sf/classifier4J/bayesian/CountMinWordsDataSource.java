@@ -0,0 +1,240 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.ICategorisedClassifier;
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.util.MemoryEstimator;
+import net.sf.classifier4J.util.MurmurHash3;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A words data source of fixed size which stores approximate counts in two count-min sketches,
+ * one for matching and one for non-matching words, instead of keeping every word.
+ * <p>
+ * Each sketch is depth rows of width counters, a word increments one counter per row and its count is read
+ * as the smallest of them. Updates are conservative, only the counters holding that minimum are raised,
+ * which keeps the overestimate well below the classic bound in practice. Every update is a handful of
+ * compare-and-set operations, there are no locks, so training and classifying may run concurrently.
+ * <p>
+ * Error bounds: with N the total number of matches (or non-matches) taught so far, a count is never
+ * underestimated and, with probability at least 1 - e<sup>-depth</sup>, is overestimated by at most
+ * e * N / width. The probability returned by {@link #getWordProbability} is computed from these counts, so a rare
+ * word can look more spammy or more hammy than it is, by at most that margin on each side.
+ * {@link #forErrorBounds} sizes the sketches for a chosen error and failure probability.
+ * <p>
+ * Words whose combined count reaches the promotion threshold are moved into a small exact table of heavy
+ * hitters while it has room, and are counted exactly from then on. They no longer add to the sketches,
+ * so the frequent words do not raise the estimates of the rare words that share their counters.
+ * <p>
+ * Words cannot be listed and categories share the sketches, the category is hashed together with the word.
+ */
+public class CountMinWordsDataSource implements ICategorisedWordsDataSource, IModelSize {
+
+    private static final int SEED = 0x5bd1e995;
+    private static final long HEAVY_HITTER_BYTES = MemoryEstimator.HASH_MAP_ENTRY
+            + MemoryEstimator.align(MemoryEstimator.OBJECT_HEADER + 2 * MemoryEstimator.REFERENCE)
+            + 2 * MemoryEstimator.align(MemoryEstimator.OBJECT_HEADER + 8);
+
+    private static final class Counts {
+        private final AtomicLong matching;
+        private final AtomicLong nonMatching;
+
+        private Counts(long matching, long nonMatching) {
+            this.matching = new AtomicLong(matching);
+            this.nonMatching = new AtomicLong(nonMatching);
+        }
+    }
+
+    private final int width;
+    private final int depth;
+    private final AtomicIntegerArray matching;
+    private final AtomicIntegerArray nonMatching;
+    private final ConcurrentHashMap<String, Counts> heavyHitters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> categories = new ConcurrentHashMap<>();
+    private final int heavyHitterCapacity;
+    private final long promotionThreshold;
+    private final LongAdder terms = new LongAdder();
+    private final LongAdder heavyHitterKeyBytes = new LongAdder();
+
+    /**
+     * @param width               counters per row, the error shrinks linearly with it
+     * @param depth               rows per sketch, the chance of exceeding the error bound shrinks exponentially with it
+     * @param heavyHitterCapacity the most words counted exactly
+     * @param promotionThreshold  the combined count at which a word is counted exactly
+     */
+    public CountMinWordsDataSource(int width, int depth, int heavyHitterCapacity, long promotionThreshold) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be at least 1");
+        }
+        if ((long) width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("width * depth must fit in an int");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.matching = new AtomicIntegerArray(width * depth);
+        this.nonMatching = new AtomicIntegerArray(width * depth);
+        this.heavyHitterCapacity = heavyHitterCapacity;
+        this.promotionThreshold = promotionThreshold;
+    }
+
+    /**
+     * Sizes the sketches so that a count is overestimated by more than epsilon times the total count
+     * with a probability of at most delta.
+     */
+    public static CountMinWordsDataSource forErrorBounds(double epsilon, double delta, int heavyHitterCapacity, long promotionThreshold) {
+        if (epsilon <= 0 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon must be positive and delta between 0 and 1");
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new CountMinWordsDataSource(width, depth, heavyHitterCapacity, promotionThreshold);
+    }
+
+    /**
+     * Sizes the sketches to use about bytes of heap with the given depth.
+     */
+    public static CountMinWordsDataSource forMemory(long bytes, int depth, int heavyHitterCapacity, long promotionThreshold) {
+        long width = bytes / (2L * 4 * depth);
+        return new CountMinWordsDataSource((int) Math.max(1, Math.min(width, Integer.MAX_VALUE / depth)), depth, heavyHitterCapacity, promotionThreshold);
+    }
+
+    /**
+     * @return the fraction of the total count by which a count may be overestimated, e / width
+     */
+    public double getEpsilon() {
+        return Math.E / width;
+    }
+
+    /**
+     * @return the probability that a count exceeds the {@link #getEpsilon()} bound, e<sup>-depth</sup>
+     */
+    public double getDelta() {
+        return Math.exp(-depth);
+    }
+
+    public WordProbability getWordProbability(String word) {
+        return getWordProbability(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public WordProbability getWordProbability(String category, String word) {
+        String key = key(category, word);
+        long matchingCount;
+        long nonMatchingCount;
+        Counts counts = heavyHitters.get(key);
+        if (counts != null) {
+            matchingCount = counts.matching.get();
+            nonMatchingCount = counts.nonMatching.get();
+        } else {
+            int h1 = MurmurHash3.hash32(key, SEED);
+            int h2 = MurmurHash3.hash32(key, h1);
+            matchingCount = estimate(matching, h1, h2);
+            nonMatchingCount = estimate(nonMatching, h1, h2);
+        }
+        if (matchingCount == 0 && nonMatchingCount == 0) {
+            return null;
+        }
+        WordProbability wp = new WordProbability(word, matchingCount, nonMatchingCount);
+        wp.setCategory(category);
+        return wp;
+    }
+
+    public void addMatch(String word) {
+        addMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addMatch(String category, String word) {
+        add(category, word, true);
+    }
+
+    public void addNonMatch(String word) {
+        addNonMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addNonMatch(String category, String word) {
+        add(category, word, false);
+    }
+
+    private void add(String category, String word, boolean match) {
+        if (!categories.containsKey(category)) {
+            categories.putIfAbsent(category, Boolean.TRUE);
+        }
+        String key = key(category, word);
+        Counts counts = heavyHitters.get(key);
+        if (counts != null) {
+            (match ? counts.matching : counts.nonMatching).incrementAndGet();
+            return;
+        }
+
+        int h1 = MurmurHash3.hash32(key, SEED);
+        int h2 = MurmurHash3.hash32(key, h1);
+        long other = estimate(match ? nonMatching : matching, h1, h2);
+        long updated = increment(match ? matching : nonMatching, h1, h2);
+        if (updated == 1 && other == 0) {
+            terms.increment();
+        }
+        if (updated + other >= promotionThreshold && heavyHitters.size() < heavyHitterCapacity) {
+            // counts taught between the estimate and the promotion by other threads may be lost
+            if (heavyHitters.putIfAbsent(key, new Counts(match ? updated : other, match ? other : updated)) == null) {
+                heavyHitterKeyBytes.add(MemoryEstimator.stringBytes(key));
+            }
+        }
+    }
+
+    private long estimate(AtomicIntegerArray sketch, int h1, int h2) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, sketch.get(index(row, h1, h2)));
+        }
+        return min;
+    }
+
+    /**
+     * Conservative update: raises every counter of the word to at least its current estimate plus one.
+     *
+     * @return the new estimate
+     */
+    private long increment(AtomicIntegerArray sketch, int h1, int h2) {
+        int target = (int) Math.min(Integer.MAX_VALUE, estimate(sketch, h1, h2) + 1);
+        for (int row = 0; row < depth; row++) {
+            int index = index(row, h1, h2);
+            int current;
+            while ((current = sketch.get(index)) < target && !sketch.compareAndSet(index, current, target)) {
+                // lost a race, read again
+            }
+        }
+        return target;
+    }
+
+    /**
+     * The counter of row, chosen by double hashing so one pair of hashes serves every row.
+     */
+    private int index(int row, int h1, int h2) {
+        int hash = h1 + row * h2;
+        return row * width + (int) ((hash & 0xffffffffL) % width);
+    }
+
+    private static String key(String category, String word) {
+        return ICategorisedClassifier.DEFAULT_CATEGORY.equals(category) ? word : category + '\u0000' + word;
+    }
+
+    /**
+     * @return an estimate of the number of distinct words taught, lower than the true count once words share counters
+     */
+    public long getTermCount() {
+        return terms.sum();
+    }
+
+    public int getCategoryCount() {
+        return categories.size();
+    }
+
+    public long getEstimatedBytes() {
+        int size = heavyHitters.size();
+        // a ConcurrentHashMap node is the size of a HashMap entry
+        return 2 * MemoryEstimator.arrayBytes(width * depth, 4)
+                + size * HEAVY_HITTER_BYTES + heavyHitterKeyBytes.sum() + MemoryEstimator.hashMapBytes(size);
+    }
+}
@@ -0,0 +1,136 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.ICategorisedClassifier;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.util.MemoryEstimator;
+import net.sf.classifier4J.util.MurmurHash3;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A words data source for the hashing trick, the matching and non-matching counts are two int arrays
+ * indexed by the features of a {@link FeatureHasher} and no words are stored at all. Memory is fixed at
+ * 8 * 2<sup>bits</sup> bytes however many words are taught.
+ * <p>
+ * A {@link BayesianClassifier} built with {@link BayesianClassifier#BayesianClassifier(HashedWordsDataSource)}
+ * hashes its input directly into features. The String methods hash the word they are given, so the
+ * data source also works behind a classifier that tokenizes into Strings.
+ * Categories other than the default are mixed into the feature index and share the arrays.
+ */
+public class HashedWordsDataSource implements ICategorisedWordsDataSource, IModelSize {
+
+    private final FeatureHasher hasher;
+    private final int mask;
+    private final int[] matching;
+    private final int[] nonMatching;
+    private final Set<String> categories = new HashSet<>();
+    private long termCount = 0;
+
+    public HashedWordsDataSource(FeatureHasher hasher) {
+        this.hasher = hasher;
+        this.mask = hasher.getFeatureCount() - 1;
+        this.matching = new int[hasher.getFeatureCount()];
+        this.nonMatching = new int[hasher.getFeatureCount()];
+    }
+
+    public FeatureHasher getFeatureHasher() {
+        return hasher;
+    }
+
+    /**
+     * @return the index holding feature for category
+     */
+    public int index(String category, int feature) {
+        if (ICategorisedClassifier.DEFAULT_CATEGORY.equals(category)) {
+            return feature;
+        }
+        return (feature ^ MurmurHash3.fmix(category.hashCode())) & mask;
+    }
+
+    /**
+     * @return the probability of the feature at index, computed as {@link WordProbability} does,
+     * or -1 if nothing was taught at index
+     */
+    public double getProbability(int index) {
+        int matchingCount = matching[index];
+        int nonMatchingCount = nonMatching[index];
+        if (matchingCount == 0) {
+            return nonMatchingCount == 0 ? -1 : IClassifier.LOWER_BOUND;
+        }
+        return BayesianClassifier.normaliseSignificance((double) matchingCount / (double) (matchingCount + nonMatchingCount));
+    }
+
+    public void addMatch(int index) {
+        if (matching[index] == 0 && nonMatching[index] == 0) {
+            termCount++;
+        }
+        if (matching[index] < Integer.MAX_VALUE) {
+            matching[index]++;
+        }
+    }
+
+    public void addNonMatch(int index) {
+        if (matching[index] == 0 && nonMatching[index] == 0) {
+            termCount++;
+        }
+        if (nonMatching[index] < Integer.MAX_VALUE) {
+            nonMatching[index]++;
+        }
+    }
+
+    void addCategory(String category) {
+        if (!ICategorisedClassifier.DEFAULT_CATEGORY.equals(category)) {
+            categories.add(category);
+        }
+    }
+
+    public WordProbability getWordProbability(String word) {
+        return getWordProbability(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public WordProbability getWordProbability(String category, String word) {
+        int index = index(category, hasher.feature(word));
+        if (matching[index] == 0 && nonMatching[index] == 0) {
+            return null;
+        }
+        WordProbability wp = new WordProbability(word, matching[index], nonMatching[index]);
+        wp.setCategory(category);
+        return wp;
+    }
+
+    public void addMatch(String word) {
+        addMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addMatch(String category, String word) {
+        addCategory(category);
+        addMatch(index(category, hasher.feature(word)));
+    }
+
+    public void addNonMatch(String word) {
+        addNonMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addNonMatch(String category, String word) {
+        addCategory(category);
+        addNonMatch(index(category, hasher.feature(word)));
+    }
+
+    /**
+     * @return the number of feature indices in use, which is lower than the number of words taught once they collide
+     */
+    public long getTermCount() {
+        return termCount;
+    }
+
+    public int getCategoryCount() {
+        return categories.size() + 1;
+    }
+
+    public long getEstimatedBytes() {
+        return 2 * MemoryEstimator.arrayBytes(matching.length, 4);
+    }
+}
@@ -0,0 +1,136 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.ICategorisedClassifier;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.util.MemoryEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A categorised words data source which keeps, for every word, one vector of counts across all categories:
+ * the matching count of the category with index c is at 2c and its non-matching count at 2c + 1.
+ * One lookup of a word gives its counts in every category, which lets
+ * {@link BayesianClassifier#classifyAll(String)} score all categories in a single pass over the input.
+ * <p>
+ * Categories are numbered in the order they are first taught. Vectors are only grown when a word is taught
+ * in a category beyond their length, a word never taught in a category has no counts in it.
+ */
+public class MultiCategoryWordsDataSource implements ICategorisedWordsDataSource, IModelSize {
+
+    private final Map<String, Integer> categoryIndices = new HashMap<>();
+    private final List<String> categories = new ArrayList<>();
+    private final Map<String, int[]> counts = new HashMap<>();
+    private long entryBytes = 0;
+
+    /**
+     * @return the categories taught so far, in the order of their indices
+     */
+    public String[] getCategories() {
+        return categories.toArray(new String[0]);
+    }
+
+    /**
+     * @return the index of category, or -1 if nothing was taught in it
+     */
+    public int getCategoryIndex(String category) {
+        Integer index = categoryIndices.get(category);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * @return the count vector of word, which may be shorter than twice the number of categories,
+     * or null if the word was never taught. It must not be modified.
+     */
+    public int[] getCounts(String word) {
+        return counts.get(word);
+    }
+
+    /**
+     * @return the probability of the word with count vector counts in the category with index category,
+     * computed as {@link WordProbability} does, or -1 if the word has no counts in that category
+     */
+    public static double getProbability(int[] counts, int category) {
+        if (2 * category + 1 >= counts.length) {
+            return -1;
+        }
+        int matchingCount = counts[2 * category];
+        int nonMatchingCount = counts[2 * category + 1];
+        if (matchingCount == 0) {
+            return nonMatchingCount == 0 ? -1 : IClassifier.LOWER_BOUND;
+        }
+        return BayesianClassifier.normaliseSignificance((double) matchingCount / (double) (matchingCount + nonMatchingCount));
+    }
+
+    public WordProbability getWordProbability(String word) {
+        return getWordProbability(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public WordProbability getWordProbability(String category, String word) {
+        int index = getCategoryIndex(category);
+        int[] wordCounts = counts.get(word);
+        if (index < 0 || wordCounts == null || 2 * index + 1 >= wordCounts.length
+                || wordCounts[2 * index] == 0 && wordCounts[2 * index + 1] == 0) {
+            return null;
+        }
+        WordProbability wp = new WordProbability(word, wordCounts[2 * index], wordCounts[2 * index + 1]);
+        wp.setCategory(category);
+        return wp;
+    }
+
+    public void addMatch(String word) {
+        addMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addMatch(String category, String word) {
+        add(category, word, 0);
+    }
+
+    public void addNonMatch(String word) {
+        addNonMatch(ICategorisedClassifier.DEFAULT_CATEGORY, word);
+    }
+
+    public void addNonMatch(String category, String word) {
+        add(category, word, 1);
+    }
+
+    private void add(String category, String word, int offset) {
+        Integer index = categoryIndices.get(category);
+        if (index == null) {
+            index = categories.size();
+            categoryIndices.put(category, index);
+            categories.add(category);
+        }
+        int position = 2 * index + offset;
+        int[] wordCounts = counts.get(word);
+        if (wordCounts == null) {
+            wordCounts = new int[2 * categories.size()];
+            counts.put(word, wordCounts);
+            entryBytes += MemoryEstimator.HASH_MAP_ENTRY + MemoryEstimator.stringBytes(word) + MemoryEstimator.arrayBytes(wordCounts.length, 4);
+        } else if (position >= wordCounts.length) {
+            int[] grown = Arrays.copyOf(wordCounts, 2 * categories.size());
+            entryBytes += MemoryEstimator.arrayBytes(grown.length, 4) - MemoryEstimator.arrayBytes(wordCounts.length, 4);
+            wordCounts = grown;
+            counts.put(word, wordCounts);
+        }
+        if (wordCounts[position] < Integer.MAX_VALUE) {
+            wordCounts[position]++;
+        }
+    }
+
+    public long getTermCount() {
+        return counts.size();
+    }
+
+    public int getCategoryCount() {
+        return categories.size();
+    }
+
+    public long getEstimatedBytes() {
+        return entryBytes + MemoryEstimator.hashMapBytes(counts.size());
+    }
+}
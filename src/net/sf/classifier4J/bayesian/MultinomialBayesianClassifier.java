@@ -0,0 +1,214 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.AbstractCategorizedTrainableClassifier;
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.MessageAnalysis;
+import net.sf.classifier4J.util.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A multinomial naive Bayes classifier over the hashed features of a {@link FeatureHasher}, an alternative to the
+ * per word probability combining of {@link BayesianClassifier}.
+ * <p>
+ * Every category is an independent two class model of the input taught with {@link #teachMatch(String, String)}
+ * and the input taught with {@link #teachNonMatch(String, String)} in that category, so teaching one category never
+ * changes the scores of another. {@link #classify(String, String)} returns the posterior probability of the
+ * matching class, which is not clamped.
+ * <p>
+ * Feature counts use Laplace (add alpha) smoothing over the features seen so far in the category. Each class keeps
+ * an int array of counts and a float array of their smoothed logarithms, so teaching is one increment and one
+ * logarithm per feature, and scoring sums the logarithms of the input's features per class, in log space so long
+ * input cannot underflow. {@link #classifyAll(String)} hashes the input once for every category.
+ * Memory is about 17 * 2<sup>bits</sup> bytes per category. Instances are not thread-safe.
+ */
+public class MultinomialBayesianClassifier extends AbstractCategorizedTrainableClassifier {
+
+    private static final int MATCH = 0;
+    private static final int NON_MATCH = 1;
+
+    /**
+     * The two classes of one category.
+     */
+    private static final class Category {
+        private final int[][] counts;
+        private final float[][] logCounts;
+        private final long[] featureTotals = new long[2];
+        private final long[] inputs = new long[2];
+        // the features taught in either class, the others say nothing about the input
+        private final boolean[] seen;
+        private int vocabulary = 0;
+
+        private Category(int features, float logAlpha) {
+            counts = new int[][]{new int[features], new int[features]};
+            logCounts = new float[][]{new float[features], new float[features]};
+            Arrays.fill(logCounts[MATCH], logAlpha);
+            Arrays.fill(logCounts[NON_MATCH], logAlpha);
+            seen = new boolean[features];
+        }
+    }
+
+    private final FeatureHasher hasher;
+    private final double alpha;
+    private final float logAlpha;
+    private final Map<String, Category> categories = new HashMap<>();
+    // the categories in the order they were first taught
+    private final List<String> categoryNames = new ArrayList<>();
+
+    /**
+     * Uses Laplace smoothing with an alpha of 1.
+     */
+    public MultinomialBayesianClassifier(FeatureHasher hasher) {
+        this(hasher, 1d);
+    }
+
+    /**
+     * @param alpha added to every feature count, above 0
+     */
+    public MultinomialBayesianClassifier(FeatureHasher hasher, double alpha) {
+        if (hasher == null) {
+            throw new IllegalArgumentException("FeatureHasher can't be null");
+        }
+        if (!(alpha > 0)) {
+            throw new IllegalArgumentException("alpha must be above 0");
+        }
+        this.hasher = hasher;
+        this.alpha = alpha;
+        this.logAlpha = (float) Math.log(alpha);
+    }
+
+    public double classify(String category, String input) {
+        return classify(category, hasher.features(checkInput(input)));
+    }
+
+    public double classify(String category, MessageAnalysis message) {
+        return classify(category, checkMessage(message).getFeatures(hasher));
+    }
+
+    private double classify(String category, int[] features) {
+        if (category == null) {
+            throw new IllegalArgumentException("category cannot be null");
+        }
+        Category model = categories.get(category);
+        if (model == null) {
+            return IClassifier.NEUTRAL_PROBABILITY;
+        }
+        return posterior(model, features);
+    }
+
+    /**
+     * Scores input against every category, hashing it once.
+     *
+     * @return the probability that input matches, per category, in the order the categories were first taught
+     */
+    public Map<String, Double> classifyAll(String input) {
+        return classifyAll(hasher.features(checkInput(input)));
+    }
+
+    /**
+     * @see #classifyAll(String)
+     */
+    public Map<String, Double> classifyAll(MessageAnalysis message) {
+        return classifyAll(checkMessage(message).getFeatures(hasher));
+    }
+
+    private Map<String, Double> classifyAll(int[] features) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String name : categoryNames) {
+            result.put(name, posterior(categories.get(name), features));
+        }
+        return result;
+    }
+
+    /**
+     * @return the posterior probability of the matching class, computed from the log likelihoods of both classes
+     */
+    private double posterior(Category model, int[] features) {
+        int known = 0;
+        double match = 0;
+        double nonMatch = 0;
+        float[] matchLogs = model.logCounts[MATCH];
+        float[] nonMatchLogs = model.logCounts[NON_MATCH];
+        for (int i = 0; i < features.length; i++) {
+            int feature = features[i];
+            if (model.seen[feature]) {
+                known++;
+                match += matchLogs[feature];
+                nonMatch += nonMatchLogs[feature];
+            }
+        }
+        long totalInputs = model.inputs[MATCH] + model.inputs[NON_MATCH];
+        // add-one smoothed priors, and the shared denominator of each class's feature probabilities
+        match += Math.log((model.inputs[MATCH] + 1d) / (totalInputs + 2)) - known * Math.log(model.featureTotals[MATCH] + alpha * model.vocabulary);
+        nonMatch += Math.log((model.inputs[NON_MATCH] + 1d) / (totalInputs + 2)) - known * Math.log(model.featureTotals[NON_MATCH] + alpha * model.vocabulary);
+        return 1 / (1 + Math.exp(nonMatch - match));
+    }
+
+    public boolean isMatch(String category, String input) {
+        return classify(category, input) >= cutoff;
+    }
+
+    public void teachMatch(String category, String input) {
+        teach(category, MATCH, hasher.features(checkInput(input)));
+    }
+
+    public void teachNonMatch(String category, String input) {
+        teach(category, NON_MATCH, hasher.features(checkInput(input)));
+    }
+
+    private void teach(String category, int label, int[] features) {
+        if (category == null) {
+            throw new IllegalArgumentException("category cannot be null");
+        }
+        Category model = categories.get(category);
+        if (model == null) {
+            model = new Category(hasher.getFeatureCount(), logAlpha);
+            categories.put(category, model);
+            categoryNames.add(category);
+        }
+        int[] counts = model.counts[label];
+        float[] logs = model.logCounts[label];
+        for (int i = 0; i < features.length; i++) {
+            int feature = features[i];
+            if (counts[feature] == Integer.MAX_VALUE) {
+                continue;
+            }
+            counts[feature]++;
+            model.featureTotals[label]++;
+            logs[feature] = (float) Math.log(counts[feature] + alpha);
+            if (!model.seen[feature]) {
+                model.seen[feature] = true;
+                model.vocabulary++;
+            }
+        }
+        model.inputs[label]++;
+    }
+
+    private static String checkInput(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("input cannot be null");
+        }
+        return input;
+    }
+
+    private static MessageAnalysis checkMessage(MessageAnalysis message) {
+        if (message == null) {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+        return message;
+    }
+
+    public FeatureHasher getFeatureHasher() {
+        return hasher;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this).append("FeatureHasher", hasher).append("alpha", alpha).append("categories", categoryNames.size()).toString();
+    }
+}
@@ -51,21 +51,132 @@
 
 package net.sf.classifier4J.bayesian;
 
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.util.MemoryEstimator;
+
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author Nick Lothian
  * @author Peter Leschev
  */
-public class SimpleWordsDataSource implements IWordsDataSource, Serializable {
+public class SimpleWordsDataSource implements IWordsDataSource, IModelSize, Serializable {
+
+    /**
+     * A WordProbability: header, word, category, two counts and the probability.
+     */
+    private static final long WORD_PROBABILITY_BYTES = MemoryEstimator.align(MemoryEstimator.OBJECT_HEADER + 2 * MemoryEstimator.REFERENCE + 3 * 8);
 
-    private Map words = new HashMap();
+    private Map<String, WordProbability> words = new HashMap<>();
+    // the same words as an array, so a sweep can resume at an index while the map is modified in between
+    private ArrayList<String> keys = new ArrayList<>();
+    private int sweepCursor = 0;
+    private long sweepCycles = 0;
+    private long entryBytes = 0;
+    private int peakSize = 0;
 
     public void setWordProbability(WordProbability wp) {
-        words.put(wp.getWord(), wp);
+        if (words.put(wp.getWord(), wp) == null) {
+            keys.add(wp.getWord());
+            entryBytes += entryBytes(wp.getWord());
+            peakSize = Math.max(peakSize, words.size());
+        }
+    }
+
+    private static long entryBytes(String word) {
+        return MemoryEstimator.HASH_MAP_ENTRY + MemoryEstimator.REFERENCE + MemoryEstimator.stringBytes(word) + WORD_PROBABILITY_BYTES;
+    }
+
+    /**
+     * Decays and prunes up to batch words, continuing where the previous call stopped and stopping early at the end of a cycle.
+     * Calling this repeatedly walks every word once per cycle, so the cost of maintenance is spread
+     * over many short calls instead of one pass over the whole table.
+     * <p>
+     * Each visited word has both of its counts multiplied by decay and rounded up or down at random, in
+     * proportion to the fraction, so every count decays exponentially on average, small ones included. A count
+     * of 1 survives a cycle with probability decay. A word is then removed when its
+     * combined count falls below minCount, or when its probability is within neutralMargin of
+     * {@link net.sf.classifier4J.IClassifier#NEUTRAL_PROBABILITY} and its combined count is below neutralMaxCount.
+     * A well-learned neutral word is kept, relearning it from a single occurrence would make it look certain.
+     * Words with a fixed probability rather than counts are never decayed or removed.
+     *
+     * @param decay between 0 and 1, 1 disables decay
+     * @return the number of words removed
+     */
+    public int sweep(int batch, double decay, long minCount, double neutralMargin, long neutralMaxCount) {
+        if (decay < 0 || decay > 1) {
+            throw new IllegalArgumentException("decay must be between 0 and 1");
+        }
+        int removed = 0;
+        for (int visited = 0; visited < batch && !keys.isEmpty(); visited++) {
+            String word = keys.get(sweepCursor);
+            WordProbability wp = words.get(word);
+            if (wp.hasCounts()) {
+                if (decay < 1) {
+                    wp.setMatchingCount(decay(wp.getMatchingCount(), decay));
+                    wp.setNonMatchingCount(decay(wp.getNonMatchingCount(), decay));
+                }
+                long count = wp.getMatchingCount() + wp.getNonMatchingCount();
+                if (count < minCount || count < neutralMaxCount
+                        && Math.abs(wp.getProbability() - IClassifier.NEUTRAL_PROBABILITY) < neutralMargin) {
+                    words.remove(word);
+                    entryBytes -= entryBytes(word);
+                    // move the last word into this slot, it is visited next
+                    keys.set(sweepCursor, keys.get(keys.size() - 1));
+                    keys.remove(keys.size() - 1);
+                    removed++;
+                } else {
+                    sweepCursor++;
+                }
+            } else {
+                sweepCursor++;
+            }
+            if (sweepCursor >= keys.size()) {
+                // a batch ends with the cycle so no word is decayed twice in one cycle
+                sweepCursor = 0;
+                sweepCycles++;
+                break;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return count * decay, stochastically rounded so the expected result is exact
+     */
+    private static long decay(long count, double decay) {
+        double decayed = count * decay;
+        long whole = (long) decayed;
+        return ThreadLocalRandom.current().nextDouble() < decayed - whole ? whole + 1 : whole;
+    }
+
+    /**
+     * @return the number of times {@link #sweep} has walked every word
+     */
+    public long getSweepCycles() {
+        return sweepCycles;
+    }
+
+    public long getTermCount() {
+        return words.size();
+    }
+
+    /**
+     * @return 1, the words are not split by category
+     */
+    public int getCategoryCount() {
+        return 1;
+    }
+
+    public long getEstimatedBytes() {
+        // a HashMap never shrinks its table
+        return entryBytes + MemoryEstimator.hashMapBytes(peakSize);
     }
 
     /**
@@ -73,13 +184,13 @@ public class SimpleWordsDataSource implements IWordsDataSource, Serializable {
      */
     public WordProbability getWordProbability(String word) {
         if (words.containsKey(word)) {
-            return (WordProbability) words.get(word);
+            return words.get(word);
         } else {
             return null;
         }
     }
 
-    public Collection getAll() {
+    public Collection<WordProbability> getAll() {
         return words.values();
     }
 
@@ -87,7 +198,7 @@ public class SimpleWordsDataSource implements IWordsDataSource, Serializable {
      * @see net.sf.classifier4J.bayesian.IWordsDataSource#addMatch(java.lang.String)
      */
     public void addMatch(String word) {
-        WordProbability wp = (WordProbability) words.get(word);
+        WordProbability wp = words.get(word);
         if (wp == null) {
             wp = new WordProbability(word, 1, 0);
         } else {
@@ -100,7 +211,7 @@ public class SimpleWordsDataSource implements IWordsDataSource, Serializable {
      * @see net.sf.classifier4J.bayesian.IWordsDataSource#addNonMatch(java.lang.String)
      */
     public void addNonMatch(String word) {
-        WordProbability wp = (WordProbability) words.get(word);
+        WordProbability wp = words.get(word);
         if (wp == null) {
             wp = new WordProbability(word, 0, 1);
         } else {
@@ -177,6 +177,13 @@ public class WordProbability implements Comparable, Serializable {
         probability = result;
     }
 
+    /**
+     * @return true if the probability is derived from matching and non-matching counts
+     */
+    boolean hasCounts() {
+        return matchingCount != UNDEFINED && nonMatchingCount != UNDEFINED;
+    }
+
     /**
      * @return
      */
@@ -0,0 +1,156 @@
+package net.sf.classifier4J.regression;
+
+import net.sf.classifier4J.AbstractCategorizedTrainableClassifier;
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.MessageAnalysis;
+import net.sf.classifier4J.util.ToStringBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An online logistic regression classifier over the hashed features of a {@link FeatureHasher}, one model per category.
+ * {@link #classify(String, String)} is the sigmoid of the dot product of the input's features with the category's
+ * weights, and each call to {@link #teachMatch(String, String)} or {@link #teachNonMatch(String, String)} is a single
+ * stochastic gradient descent step on the log loss, touching only the weights of the input's features.
+ * <p>
+ * Feature values are occurrence counts scaled by one over the square root of the number of features, so the score of
+ * long input grows with the square root of its length rather than its length. L2 regularisation is applied to the
+ * weights an update touches, the others are left alone until they are next used.
+ * <p>
+ * Weights are a float array per category, 4 * 2<sup>bits</sup> bytes each, read and written without locking in the
+ * style of Hogwild!: threads may teach and classify through {@link #teach(String, int[], boolean)} and
+ * {@link #classify(String, int[])} at the same time, at the cost of an occasional lost update, which sparse updates
+ * make rare and which gradient descent tolerates. The methods taking text use the shared {@link FeatureHasher},
+ * which is not thread-safe, so concurrent callers should hash with their own hasher of the same number of bits.
+ */
+public class LogisticRegressionClassifier extends AbstractCategorizedTrainableClassifier {
+
+    public static final double DEFAULT_LEARNING_RATE = 0.5d;
+    public static final double DEFAULT_REGULARISATION = 1e-6d;
+
+    private final FeatureHasher hasher;
+    private final double learningRate;
+    private final double regularisation;
+    // the weights of each category, with the bias after the feature weights
+    private final Map<String, float[]> weights = new ConcurrentHashMap<>();
+
+    public LogisticRegressionClassifier(FeatureHasher hasher) {
+        this(hasher, DEFAULT_LEARNING_RATE, DEFAULT_REGULARISATION);
+    }
+
+    /**
+     * @param learningRate the size of each gradient descent step, above 0
+     * @param regularisation the L2 regularisation strength, 0 or above
+     */
+    public LogisticRegressionClassifier(FeatureHasher hasher, double learningRate, double regularisation) {
+        if (hasher == null) {
+            throw new IllegalArgumentException("FeatureHasher can't be null");
+        }
+        if (!(learningRate > 0)) {
+            throw new IllegalArgumentException("learningRate must be above 0");
+        }
+        if (!(regularisation >= 0)) {
+            throw new IllegalArgumentException("regularisation must be 0 or above");
+        }
+        this.hasher = hasher;
+        this.learningRate = learningRate;
+        this.regularisation = regularisation;
+    }
+
+    public double classify(String category, String input) {
+        return classify(category, hasher.features(checkInput(input)));
+    }
+
+    public double classify(String category, MessageAnalysis message) {
+        return classify(category, checkMessage(message).getFeatures(hasher));
+    }
+
+    /**
+     * @param features the features of the input as computed by a {@link FeatureHasher} with the same number of bits
+     * @return the probability that the input matches category, or {@link IClassifier#NEUTRAL_PROBABILITY} if
+     * nothing was taught in it
+     */
+    public double classify(String category, int[] features) {
+        if (category == null) {
+            throw new IllegalArgumentException("category cannot be null");
+        }
+        float[] w = weights.get(category);
+        if (w == null) {
+            return IClassifier.NEUTRAL_PROBABILITY;
+        }
+        return sigmoid(dot(w, features, scale(features)));
+    }
+
+    private static double dot(float[] w, int[] features, double scale) {
+        double sum = 0;
+        for (int i = 0; i < features.length; i++) {
+            sum += w[features[i]];
+        }
+        return sum * scale + w[w.length - 1];
+    }
+
+    private static double scale(int[] features) {
+        return features.length == 0 ? 0 : 1 / Math.sqrt(features.length);
+    }
+
+    private static double sigmoid(double z) {
+        return 1 / (1 + Math.exp(-z));
+    }
+
+    public boolean isMatch(String category, String input) {
+        return classify(category, input) >= cutoff;
+    }
+
+    public void teachMatch(String category, String input) {
+        teach(category, hasher.features(checkInput(input)), true);
+    }
+
+    public void teachNonMatch(String category, String input) {
+        teach(category, hasher.features(checkInput(input)), false);
+    }
+
+    /**
+     * Takes one gradient descent step towards classifying the input as matching category or not.
+     *
+     * @param features the features of the input as computed by a {@link FeatureHasher} with the same number of bits
+     */
+    public void teach(String category, int[] features, boolean match) {
+        if (category == null) {
+            throw new IllegalArgumentException("category cannot be null");
+        }
+        float[] w = weights.computeIfAbsent(category, c -> new float[hasher.getFeatureCount() + 1]);
+        double scale = scale(features);
+        double gradient = sigmoid(dot(w, features, scale)) - (match ? 1 : 0);
+        double step = learningRate * gradient * scale;
+        for (int i = 0; i < features.length; i++) {
+            int feature = features[i];
+            w[feature] -= (float) (step + learningRate * regularisation * w[feature]);
+        }
+        w[w.length - 1] -= (float) (learningRate * gradient);
+    }
+
+    private static String checkInput(String input) {
+        if (input == null) {
+            throw new IllegalArgumentException("input cannot be null");
+        }
+        return input;
+    }
+
+    private static MessageAnalysis checkMessage(MessageAnalysis message) {
+        if (message == null) {
+            throw new IllegalArgumentException("message cannot be null");
+        }
+        return message;
+    }
+
+    public FeatureHasher getFeatureHasher() {
+        return hasher;
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this).append("FeatureHasher", hasher).append("learningRate", learningRate)
+                .append("regularisation", regularisation).append("categories", weights.size()).toString();
+    }
+}
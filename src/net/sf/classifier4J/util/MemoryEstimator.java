@@ -0,0 +1,49 @@
+package net.sf.classifier4J.util;
+
+/**
+ * Shallow size estimates for the objects the models are built from, assuming a 64 bit JVM
+ * with compressed references and 8 byte object alignment (the default for heaps below 32GB).
+ * Strings are sized as UTF-16, which overestimates Latin-1 text on JVMs with compact strings.
+ */
+public final class MemoryEstimator {
+
+    public static final int OBJECT_HEADER = 12;
+    public static final int ARRAY_HEADER = 16;
+    public static final int REFERENCE = 4;
+
+    /**
+     * A java.util.HashMap.Node: header, hash, key, value and next.
+     */
+    public static final long HASH_MAP_ENTRY = align(OBJECT_HEADER + 4 + 3 * REFERENCE);
+
+    private static final long HASH_MAP = align(OBJECT_HEADER + 4 * 4 + 3 * REFERENCE);
+
+    private MemoryEstimator() {
+    }
+
+    public static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public static long arrayBytes(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    /**
+     * @return the size of the String object and its character array
+     */
+    public static long stringBytes(String value) {
+        return align(OBJECT_HEADER + REFERENCE + 4) + arrayBytes(value.length(), 2);
+    }
+
+    /**
+     * @return the size of a HashMap holding size entries and its table, excluding the entries themselves
+     */
+    public static long hashMapBytes(int size) {
+        int capacity = 16;
+        while (capacity * 0.75 < size) {
+            capacity <<= 1;
+        }
+        return HASH_MAP + arrayBytes(capacity, REFERENCE);
+    }
+}
@@ -0,0 +1,71 @@
+package net.sf.classifier4J.util;
+
+/**
+ * MurmurHash3 (x86, 32 bit) over the UTF-16 code units of a character sequence, so text can be hashed
+ * in place without first encoding it or copying it into a String. Two characters form one 4 byte block,
+ * giving the same results as hashing the UTF-16LE bytes of the text.
+ */
+public final class MurmurHash3 {
+
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    private MurmurHash3() {
+    }
+
+    public static int hash32(CharSequence text, int seed) {
+        return hash32(text, 0, text.length(), seed);
+    }
+
+    /**
+     * Hashes the characters in [start, end) of text.
+     */
+    public static int hash32(CharSequence text, int start, int end, int seed) {
+        int h1 = seed;
+        int i = start + 1;
+        for (; i < end; i += 2) {
+            int k1 = text.charAt(i - 1) | (text.charAt(i) << 16);
+            h1 = mixH1(h1, mixK1(k1));
+        }
+        if (i == end) {
+            h1 ^= mixK1(text.charAt(end - 1));
+        }
+        return fmix(h1 ^ (2 * (end - start)));
+    }
+
+    private static int mixK1(int k1) {
+        k1 *= C1;
+        k1 = Integer.rotateLeft(k1, 15);
+        return k1 * C2;
+    }
+
+    private static int mixH1(int h1, int k1) {
+        h1 ^= k1;
+        h1 = Integer.rotateLeft(h1, 13);
+        return h1 * 5 + 0xe6546b64;
+    }
+
+    /**
+     * The MurmurHash3 finalizer, spreads every input bit over the whole result.
+     */
+    public static int fmix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * The 64 bit MurmurHash3 finalizer.
+     */
+    public static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
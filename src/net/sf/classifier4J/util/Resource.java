@@ -52,33 +52,53 @@
 package net.sf.classifier4J.util;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>A class to locate resources, retrieve their contents, and determine their
- * last modified time. To find the resource the class searches the CLASSPATH
- * first, then Resource.class.getResource("/" + name). If the Resource finds
- * a "file:" URL, the file path will be treated as a file. Otherwise, the
- * path is treated as a URL and has limited last modified info.</p>
+ * last modified time. To find the resource the class asks the context class loader
+ * first, or the loader of Resource if there is none, which finds resources in directories
+ * and jars alike with a single lookup, then searches the directories of the CLASSPATH.
+ * If the Resource finds a "file:" URL, the file path will be treated as a file. Otherwise,
+ * the path is treated as a URL and has limited last modified info.</p>
+ *
+ * <p>{@link #get(String)} resolves each name once per class loader and shares the
+ * Resource, whose contents are read at most once by {@link #getText()}.</p>
  *
  * <p>Heavily based on the example from http://www.onjava.com/pub/a/onjava/excerpt/jebp_3/index1.html?page=3#ex3-4</p>
  */
 public class Resource implements Serializable {
 
+    // resources resolved by get(String), per class loader
+    private static final Map<ClassLoader, ConcurrentHashMap<String, Resource>> resolved = new WeakHashMap<>();
+    // the CLASSPATH last split into paths
+    private static String splitClasspath;
+    private static String[] classpathPaths;
+
     private String name;
     private File file;
     private URL url;
+    private transient volatile String text;
 
     public Resource(String name) throws IOException {
+        this(name, loader());
+    }
+
+    private Resource(String name, ClassLoader loader) throws IOException {
         this.name = name;
         SecurityException exception = null;
 
         try {
-            // Search using the CLASSPATH. If found, "file" is set and the call
-            // returns true.  A SecurityException might bubble up.
-            if (tryClasspath(name)) {
+            // Search using the classloader getResource(  ). If found as a file,
+            // "file" is set; if found as a URL, "url" is set.
+            if (tryLoader(name, loader)) {
                 return;
             }
         } catch (SecurityException e) {
@@ -86,9 +106,9 @@ public class Resource implements Serializable {
         }
 
         try {
-            // Search using the classloader getResource(  ). If found as a file,
-            // "file" is set; if found as a URL, "url" is set.
-            if (tryLoader(name)) {
+            // Search using the CLASSPATH. If found, "file" is set and the call
+            // returns true.  A SecurityException might bubble up.
+            if (tryClasspath(name)) {
                 return;
             }
         } catch (SecurityException e) {
@@ -104,6 +124,32 @@ public class Resource implements Serializable {
         throw new IOException("Resource '" + name + "' could not be found in " + "the CLASSPATH (" + System.getProperty("java.class.path") + "), nor could it be located by the classloader responsible for the " + "web application (WEB-INF/classes)" + msg);
     }
 
+    /**
+     * Returns the resource called name as seen by the context class loader,
+     * resolving it only the first time it is asked for with that loader.
+     */
+    public static Resource get(String name) throws IOException {
+        ClassLoader loader = loader();
+        ConcurrentHashMap<String, Resource> resources;
+        synchronized (resolved) {
+            resources = resolved.computeIfAbsent(loader, l -> new ConcurrentHashMap<>());
+        }
+        Resource resource = resources.get(name);
+        if (resource == null) {
+            resource = new Resource(name, loader);
+            Resource previous = resources.putIfAbsent(name, resource);
+            if (previous != null) {
+                resource = previous;
+            }
+        }
+        return resource;
+    }
+
+    private static ClassLoader loader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : Resource.class.getClassLoader();
+    }
+
     /**
      * Returns the resource name, as passed to the constructor
      */
@@ -123,6 +169,27 @@ public class Resource implements Serializable {
         return null;
     }
 
+    /**
+     * Returns the contents of the resource decoded as UTF-8. They are read on
+     * the first call and kept, later changes to the resource are not seen.
+     */
+    public String getText() throws IOException {
+        String contents = text;
+        if (contents == null) {
+            try (InputStream in = getInputStream()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                contents = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+            }
+            text = contents;
+        }
+        return contents;
+    }
+
     /**
      * Returns when the resource was last modified. If the resource
      * was found using a URL, this method will work only if the URL
@@ -161,12 +228,20 @@ public class Resource implements Serializable {
 
     // Returns true if found
     private boolean tryClasspath(String filename) {
-        String classpath = System.getProperty("java.class.path");
-        String[] paths = split(classpath, File.pathSeparator);
-        file = searchDirectories(paths, filename);
+        file = searchDirectories(classpathPaths(), filename);
         return (file != null);
     }
 
+    // Splits the CLASSPATH again only if it changed.
+    private static synchronized String[] classpathPaths() {
+        String classpath = System.getProperty("java.class.path", "");
+        if (!classpath.equals(splitClasspath)) {
+            classpathPaths = split(classpath, File.pathSeparator);
+            splitClasspath = classpath;
+        }
+        return classpathPaths;
+    }
+
     private static File searchDirectories(String[] paths, String filename) {
         SecurityException exception = null;
         for (int i = 0; i < paths.length; i++) {
@@ -208,9 +283,9 @@ public class Resource implements Serializable {
     }
 
     // Returns true if found
-    private boolean tryLoader(String name) {
-        name = "/" + name;
-        URL res = Resource.class.getResource(name);
+    private boolean tryLoader(String name, ClassLoader loader) {
+        // class loaders take names without the leading "/" of Class.getResource
+        URL res = loader != null ? loader.getResource(name) : ClassLoader.getSystemResource(name);
         if (res == null) {
             return false;
         } else {
@@ -227,9 +302,13 @@ public class Resource implements Serializable {
     }
 
     private static File urlToFile(URL res) {
-        String externalForm = res.toExternalForm();
-        if (externalForm.startsWith("file:")) {
-            return new File(externalForm.substring(5));
+        if ("file".equals(res.getProtocol())) {
+            try {
+                // decodes escapes such as %20 in the path
+                return new File(res.toURI());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return new File(res.getPath());
+            }
         }
         return null;
     }
@@ -0,0 +1,198 @@
+package net.sf.classifier4J.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable set of words compiled into a perfect hash table, looked up case-insensitively against any span
+ * of a {@link CharSequence}. A lookup hashes the span once, reads one displacement and one slot, and compares
+ * the span with the single word that may be there, so it takes time linear in the span and allocates nothing.
+ * <p>
+ * The table is built by hash and displace: the words are grouped into buckets by one hash, and starting with the
+ * largest bucket each bucket is given the smallest displacement that moves all of its words into free slots.
+ * The table usually has at most twice as many slots as words, it is doubled if some bucket cannot be placed.
+ * <p>
+ * Words are compared with {@link Character#toLowerCase(char)} applied to each character, so matching does not
+ * depend on the default locale.
+ */
+public final class StopWordSet {
+
+    private static final long SEED = 0xcbf29ce484222325L;
+    private static final long DISPLACEMENT = 0x9e3779b97f4a7c15L;
+    // words per bucket on average
+    private static final int BUCKET_SIZE = 4;
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+
+    // the lowercased words, one after another
+    private final char[] chars;
+    // per slot, the start of its word in chars and its length, -1 for a free slot
+    private final int[] starts;
+    private final int[] lengths;
+    private final int[] displacements;
+    private final int slotMask;
+    private final int size;
+
+    /**
+     * @param words the words, null and empty words are ignored and case does not matter
+     */
+    public StopWordSet(String[] words) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String word : words) {
+            if (word != null && !word.isEmpty()) {
+                unique.add(lowerCase(word));
+            }
+        }
+        this.size = unique.size();
+        StringBuilder packed = new StringBuilder();
+        int[] wordStarts = new int[size];
+        long[] hashes = new long[size];
+        int i = 0;
+        for (String word : unique) {
+            wordStarts[i] = packed.length();
+            hashes[i] = hash(word, 0, word.length());
+            packed.append(word);
+            i++;
+        }
+        this.chars = packed.toString().toCharArray();
+
+        int slots = Integer.highestOneBit(Math.max(1, size)) * 2;
+        int[][] table;
+        while ((table = place(unique, wordStarts, hashes, slots)) == null) {
+            if (slots >= 1 << 30) {
+                throw new IllegalStateException("could not build a perfect hash of " + size + " words");
+            }
+            slots *= 2;
+        }
+        this.slotMask = slots - 1;
+        this.starts = table[0];
+        this.lengths = table[1];
+        this.displacements = table[2];
+    }
+
+    /**
+     * @return the word starts and lengths per slot and the displacements per bucket, or null if some bucket could not be placed
+     */
+    private static int[][] place(Set<String> words, int[] wordStarts, long[] hashes, int slots) {
+        int bucketCount = Math.max(1, words.size() / BUCKET_SIZE);
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int b = 0; b < bucketCount; b++) {
+            buckets.add(new ArrayList<>());
+        }
+        int[] wordLengths = new int[words.size()];
+        int w = 0;
+        for (String word : words) {
+            wordLengths[w] = word.length();
+            buckets.get(bucket(hashes[w], bucketCount)).add(w);
+            w++;
+        }
+        Integer[] order = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        int[] starts = new int[slots];
+        int[] lengths = new int[slots];
+        Arrays.fill(starts, -1);
+        int[] displacements = new int[bucketCount];
+        int[] taken = new int[BUCKET_SIZE * 4];
+        for (int b : order) {
+            List<Integer> bucket = buckets.get(b);
+            if (bucket.isEmpty()) {
+                break;
+            }
+            if (taken.length < bucket.size()) {
+                taken = new int[bucket.size()];
+            }
+            boolean placed = false;
+            for (int d = 0; d < MAX_DISPLACEMENT && !placed; d++) {
+                placed = true;
+                for (int j = 0; j < bucket.size() && placed; j++) {
+                    int slot = slot(hashes[bucket.get(j)], d, slots - 1);
+                    placed = starts[slot] < 0;
+                    for (int k = 0; k < j && placed; k++) {
+                        placed = taken[k] != slot;
+                    }
+                    taken[j] = slot;
+                }
+                if (placed) {
+                    displacements[b] = d;
+                    for (int j = 0; j < bucket.size(); j++) {
+                        starts[taken[j]] = wordStarts[bucket.get(j)];
+                        lengths[taken[j]] = wordLengths[bucket.get(j)];
+                    }
+                }
+            }
+            if (!placed) {
+                return null;
+            }
+        }
+        return new int[][]{starts, lengths, displacements};
+    }
+
+    /**
+     * @return the number of distinct words
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(CharSequence word) {
+        return word != null && contains(word, 0, word.length());
+    }
+
+    /**
+     * @return true if the characters of text from start to end, exclusive, are one of the words
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        if (size == 0 || start >= end) {
+            return false;
+        }
+        long hash = hash(text, start, end);
+        int slot = slot(hash, displacements[bucket(hash, displacements.length)], slotMask);
+        int wordStart = starts[slot];
+        if (wordStart < 0 || lengths[slot] != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (chars[wordStart++] != Character.toLowerCase(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64 bit FNV-1a over the lowercased characters, two distinct words practically never share all 64 bits.
+     */
+    private static long hash(CharSequence text, int start, int end) {
+        long hash = SEED;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ Character.toLowerCase(text.charAt(i))) * 0x100000001b3L;
+        }
+        return MurmurHash3.fmix64(hash);
+    }
+
+    private static int bucket(long hash, int bucketCount) {
+        return (int) ((hash >>> 32) % bucketCount);
+    }
+
+    private static int slot(long hash, int displacement, int mask) {
+        return (int) MurmurHash3.fmix64(hash + displacement * DISPLACEMENT) & mask;
+    }
+
+    private static String lowerCase(String word) {
+        char[] lower = new char[word.length()];
+        for (int i = 0; i < lower.length; i++) {
+            lower[i] = Character.toLowerCase(word.charAt(i));
+        }
+        return new String(lower);
+    }
+
+    public String toString() {
+        return new ToStringBuilder(this).append("size", size).append("slots", slotMask + 1).toString();
+    }
+}
@@ -1,18 +1,31 @@
 package net.sf.classifier4J.vector;
 
+import net.sf.classifier4J.IModelSize;
+import net.sf.classifier4J.util.MemoryEstimator;
+
 import java.util.HashMap;
 import java.util.Map;
 
 
-public class HashMapTermVectorStorage implements TermVectorStorage {
+public class HashMapTermVectorStorage implements TermVectorStorage, IModelSize {
     private Map storage = new HashMap();
+    private long termCount = 0;
+    private long entryBytes = 0;
 
 
     /**
      * @see net.sf.classifier4J.vector.TermVectorStorage#addTermVector(java.lang.String, net.sf.classifier4J.vector.TermVector)
      */
     public void addTermVector(String category, TermVector termVector) {
-        storage.put(category, termVector);
+        TermVector previous = (TermVector) storage.put(category, termVector);
+        if (previous == null) {
+            entryBytes += MemoryEstimator.HASH_MAP_ENTRY + MemoryEstimator.stringBytes(category);
+        } else {
+            termCount -= previous.size();
+            entryBytes -= previous.estimateBytes();
+        }
+        termCount += termVector.size();
+        entryBytes += termVector.estimateBytes();
     }
 
     /**
@@ -22,4 +35,16 @@ public class HashMapTermVectorStorage implements TermVectorStorage {
         return (TermVector) storage.get(category);
     }
 
+    public long getTermCount() {
+        return termCount;
+    }
+
+    public int getCategoryCount() {
+        return storage.size();
+    }
+
+    public long getEstimatedBytes() {
+        return entryBytes + MemoryEstimator.hashMapBytes(storage.size());
+    }
+
 }
@@ -1,15 +1,44 @@
 package net.sf.classifier4J.vector;
 
+import net.sf.classifier4J.util.MemoryEstimator;
+
 import java.io.Serializable;
 
 
 public class TermVector implements Serializable {
     private final String terms[];
     private final int values[];
+    private final int features[];
 
     public TermVector(String[] terms, int[] values) {
         this.terms = terms;
         this.values = values;
+        this.features = null;
+    }
+
+    /**
+     * Creates a vector over hashed features rather than terms, see {@link net.sf.classifier4J.FeatureHasher}.
+     *
+     * @param features the feature indices in ascending order
+     */
+    public TermVector(int[] features, int[] values) {
+        this.terms = new String[0];
+        this.values = values;
+        this.features = features;
+    }
+
+    /**
+     * @return true if the vector is over hashed features and has no terms
+     */
+    public boolean isHashed() {
+        return features != null;
+    }
+
+    /**
+     * @return the feature indices of a hashed vector in ascending order
+     */
+    public int[] getFeatures() {
+        return (int[]) features.clone();
     }
 
     public String[] getTerms() {
@@ -20,12 +49,35 @@ public class TermVector implements Serializable {
         return (int[]) values.clone();
     }
 
+    /**
+     * @return the number of terms in the vector
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @return an estimate of the heap retained by this vector, including its term strings
+     */
+    public long estimateBytes() {
+        long bytes = MemoryEstimator.align(MemoryEstimator.OBJECT_HEADER + 3 * MemoryEstimator.REFERENCE)
+                + MemoryEstimator.arrayBytes(terms.length, MemoryEstimator.REFERENCE)
+                + MemoryEstimator.arrayBytes(values.length, 4);
+        if (features != null) {
+            bytes += MemoryEstimator.arrayBytes(features.length, 4);
+        }
+        for (int i = 0; i < terms.length; i++) {
+            bytes += MemoryEstimator.stringBytes(terms[i]);
+        }
+        return bytes;
+    }
+
     public String toString() {
         StringBuffer results = new StringBuffer("{");
 
-        for (int i = 0; i < terms.length; i++) {
+        for (int i = 0; i < values.length; i++) {
             results.append("[");
-            results.append(terms[i]);
+            results.append(features != null ? String.valueOf(features[i]) : terms[i]);
             results.append(", ");
             results.append(values[i]);
             results.append("] ");
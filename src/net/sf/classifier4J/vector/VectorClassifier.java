@@ -15,6 +15,7 @@ public class VectorClassifier extends AbstractCategorizedTrainableClassifier {
     private ITokenizer tokenizer;
     private IStopWordProvider stopWordsProvider;
     private TermVectorStorage storage;
+    private FeatureHasher hasher;
 
     public VectorClassifier() {
         tokenizer = new DefaultTokenizer();
@@ -29,10 +30,39 @@ public class VectorClassifier extends AbstractCategorizedTrainableClassifier {
         this.storage = storage;
     }
 
+    public VectorClassifier(TermVectorStorage storage, ITokenizer tokenizer) {
+        this(storage);
+        if (tokenizer == null) {
+            throw new IllegalArgumentException("ITokenizer can't be null");
+        }
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Creates a classifier using the hashing trick, input is hashed straight into features by hasher,
+     * which also drops the stop words, and the stored vectors hold feature indices instead of terms.
+     */
+    public VectorClassifier(TermVectorStorage storage, FeatureHasher hasher) {
+        this(storage);
+        if (hasher == null) {
+            throw new IllegalArgumentException("FeatureHasher can't be null");
+        }
+        this.hasher = hasher;
+    }
+
     /**
      * @see net.sf.classifier4J.ICategorisedClassifier#classify(java.lang.String, java.lang.String)
      */
     public double classify(String category, String input) throws ClassifierException {
+        if (hasher != null) {
+            TermVector tv = storage.getTermVector(category);
+            if (tv == null) {
+                return 0;
+            }
+            int[] features = hasher.features(input);
+            Arrays.sort(features);
+            return classifyFeatures(tv, features);
+        }
 
         // Create a map of the word frequency from the input
         Map wordFrequencies = Utilities.getWordFrequency(input, false, tokenizer, stopWordsProvider);
@@ -48,6 +78,30 @@ public class VectorClassifier extends AbstractCategorizedTrainableClassifier {
     }
 
 
+    /**
+     * @see net.sf.classifier4J.ICategorisedClassifier#classify(java.lang.String, net.sf.classifier4J.MessageAnalysis)
+     */
+    public double classify(String category, MessageAnalysis message) throws ClassifierException {
+        TermVector tv = storage.getTermVector(category);
+        if (tv == null) {
+            return 0;
+        }
+        if (hasher != null) {
+            return classifyFeatures(tv, message.getSortedFeatures(hasher));
+        }
+        int[] inputValues = generateTermValuesVector(tv.getTerms(), message.getWordFrequency(tokenizer, stopWordsProvider));
+        return VectorUtils.cosineOfVectors(inputValues, tv.getValues());
+    }
+
+    private static double classifyFeatures(TermVector tv, int[] sortedFeatures) {
+        int[] featureValues = tv.getFeatures();
+        int[] inputValues = new int[featureValues.length];
+        for (int i = 0; i < featureValues.length; i++) {
+            inputValues[i] = countFeature(sortedFeatures, featureValues[i]);
+        }
+        return VectorUtils.cosineOfVectors(inputValues, tv.getValues());
+    }
+
     /**
      * @see net.sf.classifier4J.ICategorisedClassifier#isMatch(java.lang.String, java.lang.String)
      */
@@ -60,6 +114,10 @@ public class VectorClassifier extends AbstractCategorizedTrainableClassifier {
      * @see net.sf.classifier4J.ITrainable#teachMatch(java.lang.String, java.lang.String)
      */
     public void teachMatch(String category, String input) throws ClassifierException {
+        if (hasher != null) {
+            storage.addTermVector(category, hashedTermVector(hasher.features(input)));
+            return;
+        }
         // Create a map of the word frequency from the input
         Map wordFrequencies = Utilities.getWordFrequency(input, false, tokenizer, stopWordsProvider);
 
@@ -77,6 +135,52 @@ public class VectorClassifier extends AbstractCategorizedTrainableClassifier {
         return;
     }
 
+    /**
+     * Builds a vector of the numTermsInVector most frequent features, ties go to the lower feature index.
+     */
+    private TermVector hashedTermVector(int[] features) {
+        Arrays.sort(features);
+        int distinct = 0;
+        long[] counted = new long[features.length];
+        for (int i = 0; i < features.length; ) {
+            int count = countFeature(features, features[i]);
+            // order by descending count, then ascending feature
+            counted[distinct++] = ((long) (Integer.MAX_VALUE - count) << 32) | features[i];
+            i += count;
+        }
+        Arrays.sort(counted, 0, distinct);
+        int size = Math.min(numTermsInVector, distinct);
+        int[] mostFrequent = new int[size];
+        for (int i = 0; i < size; i++) {
+            mostFrequent[i] = (int) counted[i];
+        }
+        Arrays.sort(mostFrequent);
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = countFeature(features, mostFrequent[i]);
+        }
+        return new TermVector(mostFrequent, values);
+    }
+
+    /**
+     * @return the number of times feature occurs in the sorted array features
+     */
+    private static int countFeature(int[] features, int feature) {
+        int index = Arrays.binarySearch(features, feature);
+        if (index < 0) {
+            return 0;
+        }
+        int start = index;
+        while (start > 0 && features[start - 1] == feature) {
+            start--;
+        }
+        int end = index + 1;
+        while (end < features.length && features[end] == feature) {
+            end++;
+        }
+        return end - start;
+    }
+
     /**
      * @param terms
      * @param wordFrequencies
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CorpusReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testForEachLine() throws IOException {
+        File file = write("corpus.txt", "aaa\nbbb\n\nccc");
+        List<String> lines = new ArrayList<>();
+        assertEquals(4, CorpusReader.forEachLine(file, lines::add));
+        assertEquals(Arrays.asList("aaa", "bbb", "", "ccc"), lines);
+    }
+
+    @Test
+    public void testForEachLineUtf8() throws IOException {
+        File file = write("corpus.txt", "gr\u00fc\u00dfe\n\u043f\u0440\u0438\u0432\u0435\u0442\n");
+        List<String> lines = new ArrayList<>();
+        CorpusReader.forEachLine(file, lines::add);
+        assertEquals(Arrays.asList("gr\u00fc\u00dfe", "\u043f\u0440\u0438\u0432\u0435\u0442"), lines);
+    }
+
+    @Test
+    public void testForEachLineLimit() throws IOException {
+        File file = write("corpus.txt", "aaa\nbbb\nccc\n");
+        List<String> lines = new ArrayList<>();
+        assertEquals(2, CorpusReader.forEachLine(file, 8, 1, lines::add));
+        assertEquals(Arrays.asList("aaa", "bbb"), lines);
+    }
+
+    @Test
+    public void testForEachLineParallelKeepsFileOrder() throws IOException {
+        // large enough to be read in parallel
+        File file = folder.newFile("large.txt");
+        int count = 10_000_000;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            for (int i = 0; i < count; i++) {
+                out.write(Integer.toString(i));
+                out.write('\n');
+            }
+        }
+        assertTrue(file.length() > 64L * 1024 * 1024);
+
+        final int[] expected = {0};
+        long read = CorpusReader.forEachLine(file, 4, line -> {
+            assertEquals(Integer.toString(expected[0]), line);
+            expected[0]++;
+        });
+        assertEquals(count, read);
+        assertEquals(count, expected[0]);
+    }
+
+    @Test
+    public void testForEachLineGzip() throws IOException {
+        File file = folder.newFile("corpus.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            for (int i = 0; i < 5000; i++) {
+                out.write(("line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        assertEquals(5000, CorpusReader.forEachLine(file, 2, lines::add));
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("line " + i, lines.get(i));
+        }
+    }
+
+    @Test
+    public void testSplit() throws IOException {
+        File file = write("corpus.txt", "aaaa\nbbbb\ncccc\ndddd\n");
+        long[] bounds = CorpusReader.split(file, 2);
+        assertArrayEquals(new long[]{0, 15, 20}, bounds);
+
+        // more parts than lines
+        bounds = CorpusReader.split(file, 100);
+        assertEquals(0, bounds[0]);
+        assertEquals(file.length(), bounds[bounds.length - 1]);
+        assertTrue(bounds.length <= 5);
+    }
+
+    @Test
+    public void testTail() throws IOException {
+        File file = write("corpus.txt", "aaa\n");
+        List<String> lines = new ArrayList<>();
+        long offset = CorpusReader.tail(file, 0, lines::add);
+        assertEquals(4, offset);
+
+        Files.write(file.toPath(), "bbb\nincomplete".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        offset = CorpusReader.tail(file, offset, lines::add);
+        assertEquals(8, offset);
+        assertEquals(Arrays.asList("aaa", "bbb"), lines);
+
+        Files.write(file.toPath(), "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        offset = CorpusReader.tail(file, offset, lines::add);
+        assertEquals(file.length(), offset);
+        assertEquals(Arrays.asList("aaa", "bbb", "incomplete"), lines);
+    }
+
+    @Test
+    public void testCompleteLength() throws IOException {
+        assertEquals(8, CorpusReader.completeLength(write("corpus.txt", "aaa\nbbb\nincomplete")));
+        assertEquals(4, CorpusReader.completeLength(write("complete.txt", "aaa\n")));
+        assertEquals(0, CorpusReader.completeLength(write("empty.txt", "")));
+    }
+
+    @Test
+    public void testResolve() throws IOException {
+        File plain = new File(folder.getRoot(), "Messages-Spam.txt");
+        File compressed = folder.newFile("Messages-Spam.txt.gz");
+        assertEquals(compressed, CorpusReader.resolve(plain));
+        assertTrue(plain.createNewFile());
+        assertEquals(plain, CorpusReader.resolve(plain));
+        assertEquals("Messages-Spam.txt", CorpusReader.stripCompressedSuffix(compressed.getName()));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import net.sf.classifier4J.ClassifierException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrometheusExporterTest {
+
+    private Metrics metrics;
+    private Model model;
+    private AsyncLog log;
+    private PrometheusExporter exporter;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException, ClassifierException {
+        metrics = new Metrics();
+        model = new Model(metrics);
+        model.bc.teachMatch("free money now");
+        model.bc.teachNonMatch("the kernel build is fixed");
+        log = new AsyncLog(System.out, 16);
+        exporter = new PrometheusExporter(metrics, new ModelHolder(model), log);
+        port = exporter.start(0);
+    }
+
+    @After
+    public void tearDown() {
+        exporter.stop();
+    }
+
+    private HttpURLConnection open(String method) throws IOException {
+        URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), port, "/metrics");
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        return connection;
+    }
+
+    private String scrape() throws IOException {
+        HttpURLConnection connection = open("GET");
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("text/plain; version=0.0.4; charset=utf-8", connection.getContentType());
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static long sample(String body, String series) {
+        Matcher matcher = Pattern.compile("(?m)^" + Pattern.quote(series) + " (\\d+)$").matcher(body);
+        assertTrue(series, matcher.find());
+        return Long.parseLong(matcher.group(1));
+    }
+
+    @Test
+    public void testScrape() throws IOException {
+        metrics.counter("messages").add(3);
+        metrics.roomCounter("room@conference.example.org").add(2);
+
+        String body = scrape();
+        assertTrue(body.contains("# TYPE bayebot_messages_total counter\n"));
+        assertEquals(3, sample(body, "bayebot_messages_total"));
+        assertTrue(body.contains("# TYPE bayebot_room_messages_total counter\n"));
+        assertEquals(2, sample(body, "bayebot_room_messages_total{room=\"room@conference.example.org\"}"));
+        assertEquals(model.getWordsSize().getTermCount(), sample(body, "bayebot_model_terms{store=\"bayesian\"}"));
+        assertTrue(sample(body, "bayebot_model_terms{store=\"bayesian\"}") > 0);
+        assertEquals(model.getWordsSize().getEstimatedBytes(), sample(body, "bayebot_model_bytes{store=\"bayesian\"}"));
+        assertEquals(0, sample(body, "bayebot_model_rebuilding"));
+
+        // counters are totals, a rate is the difference between scrapes
+        metrics.counter("messages").add(2);
+        metrics.roomCounter("room@conference.example.org").increment();
+        body = scrape();
+        assertEquals(5, sample(body, "bayebot_messages_total"));
+        assertEquals(3, sample(body, "bayebot_room_messages_total{room=\"room@conference.example.org\"}"));
+    }
+
+    @Test
+    public void testOnlyGetAndHead() throws IOException {
+        assertEquals(200, open("HEAD").getResponseCode());
+        assertEquals(405, open("POST").getResponseCode());
+    }
+
+    @Test
+    public void testEscapesRoomLabels() throws IOException {
+        metrics.roomCounter("a\"b\\c").increment();
+        assertEquals(1, sample(scrape(), "bayebot_room_messages_total{room=\"a\\\"b\\\\c\"}"));
+    }
+}
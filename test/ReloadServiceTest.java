@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2021 Divested Computing Group
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReloadServiceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void append(File file, String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    @Test
+    public void testLinesAppendedBeforeStartAreRead() throws IOException, InterruptedException {
+        File corpus = folder.newFile("Messages-Spam.txt");
+        Files.write(corpus.toPath(), "read\npartial".getBytes(StandardCharsets.UTF_8));
+        ReloadService service = new ReloadService(folder.getRoot());
+        List<String> tailed = Collections.synchronizedList(new ArrayList<>());
+        service.tail(corpus, tailed::add);
+
+        // the initial read stops where the tail starts
+        List<String> read = new ArrayList<>();
+        service.withOffsets(offsets -> {
+            try {
+                return CorpusReader.forEachLine(corpus, offsets.get(corpus), 1, read::add);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertEquals(Collections.singletonList("read"), read);
+
+        // appended while the bot connects, before the directory is watched
+        append(corpus, " line\nappended\n");
+        service.start();
+        try {
+            for (int i = 0; i < 100 && tailed.size() < 2; i++) {
+                Thread.sleep(50);
+            }
+            assertEquals(Arrays.asList("partial line", "appended"), tailed);
+        } finally {
+            service.stop();
+        }
+    }
+}
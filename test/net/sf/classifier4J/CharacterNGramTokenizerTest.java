@@ -0,0 +1,67 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class CharacterNGramTokenizerTest {
+
+    @Test
+    public void testTokenize() {
+        CharacterNGramTokenizer tokenizer = new CharacterNGramTokenizer(3, 20);
+        assertArrayEquals(new String[]{" ab", "abc", "bc "}, tokenizer.tokenize("ABC"));
+        // runs of other characters collapse to one space
+        assertArrayEquals(new String[]{" a ", "a b", " b "}, tokenizer.tokenize("a, - b!"));
+        assertArrayEquals(new String[]{" a "}, tokenizer.tokenize("a"));
+        assertArrayEquals(new String[0], tokenizer.tokenize(" ?! "));
+    }
+
+    @Test
+    public void testTokenizeDropsFormatCharacters() {
+        CharacterNGramTokenizer tokenizer = new CharacterNGramTokenizer(3, 20);
+        assertArrayEquals(tokenizer.tokenize("free"), tokenizer.tokenize("fr\u200bee"));
+    }
+
+    @Test
+    public void testRollingHashMatchesFeature() {
+        String[] inputs = {"fr33 cr4pto, click HERE", "a", "ab", "\u0437\u0434\u0440\u0430\u0432\u0441\u0442\u0432\u0443\u0439 world", ""};
+        for (int n = 1; n <= 6; n++) {
+            CharacterNGramTokenizer tokenizer = new CharacterNGramTokenizer(n, 20);
+            for (String input : inputs) {
+                String[] grams = tokenizer.tokenize(input);
+                int[] features = tokenizer.features(input);
+                assertEquals(grams.length, features.length);
+                for (int i = 0; i < grams.length; i++) {
+                    assertEquals(input + " " + n, tokenizer.feature(grams[i]), features[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongInput() {
+        CharacterNGramTokenizer tokenizer = new CharacterNGramTokenizer(4, 20);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append("word").append(i).append(' ');
+        }
+        String[] grams = tokenizer.tokenize(input.toString());
+        int[] features = tokenizer.features(input.toString());
+        for (int i = 0; i < grams.length; i++) {
+            assertEquals(tokenizer.feature(grams[i]), features[i]);
+        }
+    }
+
+    @Test
+    public void testNormalizer() {
+        CharacterNGramTokenizer tokenizer = new CharacterNGramTokenizer(3, 20);
+        tokenizer.setNormalizer(new TextNormalizer());
+        assertArrayEquals(tokenizer.features("free"), tokenizer.features("\uff46\uff52\uff45\uff45"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidN() {
+        new CharacterNGramTokenizer(0, 20);
+    }
+}
@@ -0,0 +1,59 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class DefaultTokenizerTest {
+
+    private static String[] spans(ITokenizer tokenizer, CharSequence input) {
+        List<String> tokens = new ArrayList<>();
+        tokenizer.tokenize(input, (text, start, end) -> tokens.add(text.subSequence(start, end).toString()));
+        return tokens.toArray(new String[0]);
+    }
+
+    @Test
+    public void testBreakOnWordBreaks() {
+        DefaultTokenizer tokenizer = new DefaultTokenizer();
+        assertArrayEquals(new String[]{"Hello", "world", "snake_case", "42"}, tokenizer.tokenize("  Hello, world! snake_case-42 "));
+        assertArrayEquals(new String[0], tokenizer.tokenize(""));
+        assertArrayEquals(new String[0], tokenizer.tokenize(null));
+    }
+
+    @Test
+    public void testBreakOnWhitespace() {
+        DefaultTokenizer tokenizer = new DefaultTokenizer(DefaultTokenizer.BREAK_ON_WHITESPACE);
+        assertArrayEquals(new String[]{"Hello,", "world!", "a-b"}, tokenizer.tokenize("Hello,\tworld!\r\n a-b"));
+    }
+
+    @Test
+    public void testCustomRegularExpression() {
+        DefaultTokenizer tokenizer = new DefaultTokenizer("[,;]+");
+        assertArrayEquals(new String[]{"a", "b c", "d"}, tokenizer.tokenize(",a,;b c;d"));
+    }
+
+    @Test
+    public void testUnicodeWords() {
+        DefaultTokenizer tokenizer = new DefaultTokenizer();
+        assertArrayEquals(new String[]{"\u043f\u0440\u0438\u0432\u0435\u0442", "gr\u00fc\u00dfe", "\u65e5\u672c"},
+                tokenizer.tokenize("\u043f\u0440\u0438\u0432\u0435\u0442, gr\u00fc\u00dfe \u65e5\u672c!"));
+    }
+
+    @Test
+    public void testSpansMatchStrings() {
+        String input = "Spans, not Strings: a\tb\nc d_e 1.5";
+        ITokenizer[] tokenizers = {new DefaultTokenizer(), new DefaultTokenizer(DefaultTokenizer.BREAK_ON_WHITESPACE), new DefaultTokenizer("\\s*[,:]\\s*")};
+        for (ITokenizer tokenizer : tokenizers) {
+            assertArrayEquals(tokenizer.tokenize(input), spans(tokenizer, input));
+            assertArrayEquals(tokenizer.tokenize(input), spans(tokenizer, new StringBuilder(input)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidConfig() {
+        new DefaultTokenizer(0);
+    }
+}
@@ -0,0 +1,81 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FeatureHasherTest {
+
+    @Test
+    public void testFeatures() {
+        FeatureHasher hasher = new FeatureHasher(20, new String[0]);
+        int[] features = hasher.features("Buy cheap_pills, buy NOW!");
+        assertArrayEquals(new int[]{hasher.feature("buy"), hasher.feature("cheap_pills"), hasher.feature("buy"), hasher.feature("now")}, features);
+    }
+
+    @Test
+    public void testFeaturesAreCaseInsensitive() {
+        FeatureHasher hasher = new FeatureHasher(20, new String[0]);
+        assertEquals(hasher.feature("spam"), hasher.feature("SpAm"));
+        assertArrayEquals(hasher.features("spam eggs"), hasher.features("SPAM Eggs"));
+    }
+
+    @Test
+    public void testFeaturesInRange() {
+        FeatureHasher hasher = new FeatureHasher(4, new String[0], 3);
+        assertEquals(16, hasher.getFeatureCount());
+        for (int feature : hasher.features("the quick brown fox jumps over the lazy dog")) {
+            assertTrue(feature >= 0 && feature < 16);
+        }
+    }
+
+    @Test
+    public void testStopWords() {
+        FeatureHasher hasher = new FeatureHasher(20);
+        assertArrayEquals(new int[]{hasher.feature("cat"), hasher.feature("mat")}, hasher.features("The cat is on the mat"));
+    }
+
+    @Test
+    public void testUnicodeWords() {
+        FeatureHasher hasher = new FeatureHasher(20, new String[0]);
+        assertArrayEquals(new int[]{hasher.feature("\u0433\u0440\u0443\u00df"), hasher.feature("caf\u00e9")},
+                hasher.features("\u0413\u0440\u0443\u00df, caf\u00e9."));
+    }
+
+    @Test
+    public void testPhrases() {
+        FeatureHasher words = new FeatureHasher(20, new String[]{"the"});
+        FeatureHasher pairs = new FeatureHasher(20, new String[]{"the"}, 2);
+        FeatureHasher triples = new FeatureHasher(20, new String[]{"the"}, 3);
+        String input = "win the big prize";
+        // stop words are dropped as words but still join phrases
+        assertEquals(3, words.features(input).length);
+        assertEquals(3 + 3, pairs.features(input).length);
+        assertEquals(3 + 3 + 2, triples.features(input).length);
+
+        int[] pairFeatures = pairs.features(input);
+        assertEquals(words.feature("win"), pairFeatures[0]);
+        // a pair depends on the order of its words
+        assertNotEquals(pairs.features("big prize")[2], pairs.features("prize big")[2]);
+    }
+
+    @Test
+    public void testNormalizer() {
+        FeatureHasher hasher = new FeatureHasher(20, new String[0]);
+        hasher.setNormalizer(new TextNormalizer());
+        assertArrayEquals(hasher.features("free money"), hasher.features("\uff46\uff52\uff45\uff45 money"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidBits() {
+        new FeatureHasher(31, new String[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidPhraseLength() {
+        new FeatureHasher(20, new String[0], 4);
+    }
+}
@@ -0,0 +1,74 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MessageAnalysisTest {
+
+    private static final String TEXT = "Free MONEY, free money and the FREE prize: click now";
+
+    /**
+     * Counts the calls to {@link #tokenize(String)}.
+     */
+    private static class CountingTokenizer extends DefaultTokenizer {
+        int calls = 0;
+
+        public String[] tokenize(String input) {
+            calls++;
+            return super.tokenize(input);
+        }
+    }
+
+    @Test
+    public void testTokensAreComputedOnce() {
+        CountingTokenizer tokenizer = new CountingTokenizer();
+        MessageAnalysis message = new MessageAnalysis(TEXT);
+        String[] tokens = message.getTokens(tokenizer);
+        assertArrayEquals(new DefaultTokenizer().tokenize(TEXT), tokens);
+        assertSame(tokens, message.getTokens(tokenizer));
+        message.getWordFrequency(tokenizer, new DefaultStopWordsProvider());
+        assertEquals(1, tokenizer.calls);
+
+        // another tokenizer gets its own tokens
+        CountingTokenizer other = new CountingTokenizer();
+        message.getTokens(other);
+        assertEquals(1, other.calls);
+    }
+
+    @Test
+    public void testFeatures() {
+        FeatureHasher hasher = new FeatureHasher(20);
+        MessageAnalysis message = new MessageAnalysis(TEXT);
+        int[] features = message.getFeatures(hasher);
+        assertArrayEquals(hasher.features(TEXT), features);
+        assertSame(features, message.getFeatures(hasher));
+
+        int[] sorted = features.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(sorted, message.getSortedFeatures(hasher));
+        // sorting does not touch the features in text order
+        assertArrayEquals(hasher.features(TEXT), message.getFeatures(hasher));
+    }
+
+    @Test
+    public void testWordFrequencyMatchesUtilities() {
+        String[] inputs = {TEXT, "", "the and a", "\u00dcn\u00efcode \u00fcn\u00efcode words"};
+        DefaultTokenizer tokenizer = new DefaultTokenizer();
+        DefaultStopWordsProvider stopWords = new DefaultStopWordsProvider();
+        for (String input : inputs) {
+            assertEquals(input, Utilities.getWordFrequency(input, false, tokenizer, stopWords),
+                    new MessageAnalysis(input).getWordFrequency(tokenizer, stopWords));
+        }
+        assertEquals(Integer.valueOf(3), new MessageAnalysis(TEXT).getWordFrequency(tokenizer, stopWords).get("free"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNull() {
+        new MessageAnalysis(null);
+    }
+}
@@ -0,0 +1,84 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class SimpleHTMLTokenizerTest {
+
+    private static void assertTokens(String[] expected, ITokenizer tokenizer, String input) {
+        assertArrayEquals(expected, tokenizer.tokenize(input));
+        // the handler sees the same tokens as spans of a reused buffer
+        List<String> tokens = new ArrayList<>();
+        tokenizer.tokenize(input, (text, start, end) -> tokens.add(text.subSequence(start, end).toString()));
+        assertArrayEquals(expected, tokens.toArray(new String[0]));
+    }
+
+    @Test
+    public void testTags() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer();
+        assertTokens(new String[]{"Hello", "world"}, tokenizer, "<html><body><p>Hello</p><div class=\"x\">world</div></body></html>");
+        assertTokens(new String[]{"one", "two"}, tokenizer, "one<br/>two");
+        // quoted '>' does not end a tag
+        assertTokens(new String[]{"text"}, tokenizer, "<a title=\"a > b\">text</a>");
+    }
+
+    @Test
+    public void testInlineTagsDoNotBreakWords() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer();
+        assertTokens(new String[]{"Viagra", "now"}, tokenizer, "V<b>ia</b><SPAN>gra</SPAN> now");
+        assertTokens(new String[]{"a", "b"}, tokenizer, "a<p>b");
+    }
+
+    @Test
+    public void testCommentsScriptsAndStyles() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer();
+        assertTokens(new String[]{"visible", "text"}, tokenizer,
+                "visible<!-- hidden <b>comment</b> --><script type=\"text/javascript\">var hidden = '</p>';</script>"
+                        + "<STYLE>p { color: red }</STYLE> text");
+        assertTokens(new String[]{"before"}, tokenizer, "before<!-- never closed");
+        assertTokens(new String[]{"before"}, tokenizer, "before<script>never closed");
+    }
+
+    @Test
+    public void testLessThanIsText() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer(DefaultTokenizer.BREAK_ON_WHITESPACE);
+        assertTokens(new String[]{"1", "<", "2"}, tokenizer, "1 < 2");
+    }
+
+    @Test
+    public void testEntities() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer(DefaultTokenizer.BREAK_ON_WHITESPACE);
+        assertTokens(new String[]{"a&b", "<c>", "\"d\"", "'e'"}, tokenizer, "a&amp;b &lt;c&gt; &quot;d&quot; &apos;e&apos;");
+        assertTokens(new String[]{"AB", "\ud83d\ude00"}, tokenizer, "&#65;&#x42; &#x1F600;");
+        assertTokens(new String[]{"caf", "x"}, tokenizer, "caf&eacute;x");
+        // not references
+        assertTokens(new String[]{"a&", "b&c", "&;", "&x;"}, tokenizer, "a& b&c &; &x;");
+    }
+
+    @Test
+    public void testResolveEntitiesOverride() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer() {
+            @Override
+            protected String resolveEntities(String contentsWithUnresolvedEntityReferences) {
+                return "&eacute;".equals(contentsWithUnresolvedEntityReferences) ? "\u00e9" : " ";
+            }
+        };
+        assertTokens(new String[]{"caf\u00e9", "x", "y"}, tokenizer, "caf&eacute; x&nbsp;y");
+    }
+
+    @Test
+    public void testResolveEntities() {
+        assertEquals("a b", new SimpleHTMLTokenizer().resolveEntities("a&nbsp;b"));
+    }
+
+    @Test
+    public void testCustomRegularExpression() {
+        SimpleHTMLTokenizer tokenizer = new SimpleHTMLTokenizer(",");
+        assertTokens(new String[]{"one", "two three"}, tokenizer, "<p><b>one</b>,<i>two</i> three</p>");
+    }
+}
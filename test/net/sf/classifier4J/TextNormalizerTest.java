@@ -0,0 +1,82 @@
+package net.sf.classifier4J;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TextNormalizerTest {
+
+    private static String normalize(String input) {
+        return new TextNormalizer().normalize(input).toString();
+    }
+
+    @Test
+    public void testPlainText() {
+        assertEquals("free money, now!", normalize("Free MONEY, now!"));
+        assertEquals("", normalize(""));
+    }
+
+    @Test
+    public void testLookalikes() {
+        // fullwidth
+        assertEquals("free", normalize("\uff46\uff52\uff45\uff45"));
+        // small capitals
+        assertEquals("free", normalize("\ua730\u0280\u1d07\u1d07"));
+        // Cyrillic e's
+        assertEquals("free", normalize("fr\u0435\u0435"));
+        // circled
+        assertEquals("free", normalize("\u24d5\u24e1\u24d4\u24d4"));
+    }
+
+    @Test
+    public void testAccents() {
+        assertEquals("cafe", normalize("caf\u00e9"));
+        // a combining accent is dropped like the precomposed one
+        assertEquals("cafe", normalize("cafe\u0301"));
+    }
+
+    @Test
+    public void testFormatCharacters() {
+        assertEquals("free", normalize("fr\u200be\u00ade\u200d"));
+    }
+
+    @Test
+    public void testExpansions() {
+        assertEquals("file", normalize("\ufb01le"));
+    }
+
+    @Test
+    public void testSupplementaryCharacters() {
+        // mathematical bold
+        assertEquals("free", normalize("\ud835\udc1f\ud835\udc2b\ud835\udc1e\ud835\udc1e"));
+        assertEquals("\ud83d\ude00", normalize("\ud83d\ude00"));
+        // a lone surrogate is kept
+        assertEquals("a\ud83d", normalize("a\ud83d"));
+    }
+
+    @Test
+    public void testOtherScriptsAreKept() {
+        assertEquals("\u65e5\u672c\u8a9e", normalize("\u65e5\u672c\u8a9e"));
+        assertEquals("\u0634", normalize("\u0634"));
+    }
+
+    @Test
+    public void testTableMatchesFold() {
+        TextNormalizer normalizer = new TextNormalizer();
+        for (int c = 0; c <= Character.MAX_VALUE; c += 7) {
+            if (Character.isSurrogate((char) c)) {
+                continue;
+            }
+            String text = String.valueOf((char) c);
+            assertEquals(Integer.toHexString(c), TextNormalizer.fold(text), normalizer.normalize(text).toString());
+        }
+    }
+
+    @Test
+    public void testNormalizingTokenizer() {
+        ITokenizer tokenizer = new NormalizingTokenizer(new DefaultTokenizer());
+        assertArrayEquals(new String[]{"free", "money"}, tokenizer.tokenize("\uff46\uff52\uff45\uff45 M\u043eney"));
+        assertArrayEquals(new String[0], tokenizer.tokenize(null));
+    }
+}
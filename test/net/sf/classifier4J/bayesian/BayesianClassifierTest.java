@@ -0,0 +1,169 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.ClassifierException;
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.ICategorisedClassifier;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.MessageAnalysis;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BayesianClassifierTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static final String[] SPAM = {
+            "Buy cheap pills now, limited offer!",
+            "You won a free prize, click the link to claim your money",
+            "Cheap loans, free money, act now",
+            "Exclusive offer: free crypto giveaway, send your wallet"
+    };
+
+    private static final String[] HAM = {
+            "Is anyone else having trouble building the kernel today?",
+            "The new release fixes the wifi driver on my laptop",
+            "Thanks, that patch worked for me",
+            "Which channel should I ask about the build server?"
+    };
+
+    private static final String[] INPUTS = {
+            "free money now",
+            "the kernel build is fixed",
+            "click the link for a free laptop",
+            "nothing known here",
+            "",
+            "Cheap WIFI offer, thanks!"
+    };
+
+    private static void teach(BayesianClassifier classifier, String category) throws ClassifierException {
+        for (String spam : SPAM) {
+            classifier.teachMatch(category, spam);
+        }
+        for (String ham : HAM) {
+            classifier.teachNonMatch(category, ham);
+        }
+    }
+
+    private static BayesianClassifier hashed() {
+        // wide enough that none of the sample words collide
+        return new BayesianClassifier(new HashedWordsDataSource(new FeatureHasher(20)));
+    }
+
+    @Test
+    public void testClassify() throws ClassifierException {
+        BayesianClassifier classifier = new BayesianClassifier();
+        teach(classifier, ICategorisedClassifier.DEFAULT_CATEGORY);
+        assertTrue(classifier.isMatch("free money, click now"));
+        assertTrue(!classifier.isMatch("the kernel build is fixed"));
+        assertEquals(IClassifier.NEUTRAL_PROBABILITY, classifier.classify("nothing known here"), DELTA);
+    }
+
+    @Test
+    public void testHashedMatchesStrings() throws ClassifierException {
+        BayesianClassifier strings = new BayesianClassifier();
+        BayesianClassifier hashed = hashed();
+        teach(strings, ICategorisedClassifier.DEFAULT_CATEGORY);
+        teach(hashed, ICategorisedClassifier.DEFAULT_CATEGORY);
+        for (String input : INPUTS) {
+            assertEquals(input, strings.classify(input), hashed.classify(input), DELTA);
+            assertEquals(input, strings.classify(ICategorisedClassifier.DEFAULT_CATEGORY, new MessageAnalysis(input)),
+                    hashed.classify(ICategorisedClassifier.DEFAULT_CATEGORY, new MessageAnalysis(input)), DELTA);
+        }
+    }
+
+    @Test
+    public void testHashedMatchesStringsOnLongInput() throws ClassifierException {
+        BayesianClassifier strings = new BayesianClassifier();
+        BayesianClassifier hashed = hashed();
+        teach(strings, ICategorisedClassifier.DEFAULT_CATEGORY);
+        teach(hashed, ICategorisedClassifier.DEFAULT_CATEGORY);
+
+        // long enough for the running products to underflow and restart
+        String[] words = "free money cheap offer kernel build patch thanks laptop prize".split(" ");
+        Random random = new Random(7);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            input.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        assertEquals(strings.classify(input.toString()), hashed.classify(input.toString()), DELTA);
+    }
+
+    @Test
+    public void testHashedMatchesStringsInCategories() throws ClassifierException {
+        BayesianClassifier strings = new BayesianClassifier(new MultiCategoryWordsDataSource());
+        BayesianClassifier hashed = hashed();
+        teach(strings, "spam");
+        teach(hashed, "spam");
+        for (String input : INPUTS) {
+            assertEquals(input, strings.classify("spam", input), hashed.classify("spam", input), DELTA);
+            assertEquals(input, IClassifier.NEUTRAL_PROBABILITY, hashed.classify(ICategorisedClassifier.DEFAULT_CATEGORY, input), DELTA);
+        }
+    }
+
+    @Test
+    public void testHashedDataSourceBehindStrings() throws ClassifierException {
+        // the String methods of the data source hash the words they are given
+        BayesianClassifier strings = new BayesianClassifier();
+        BayesianClassifier hashedWords = new BayesianClassifier((IWordsDataSource) new HashedWordsDataSource(new FeatureHasher(20)));
+        teach(strings, ICategorisedClassifier.DEFAULT_CATEGORY);
+        teach(hashedWords, ICategorisedClassifier.DEFAULT_CATEGORY);
+        for (String input : INPUTS) {
+            assertEquals(input, strings.classify(input), hashedWords.classify(input), DELTA);
+        }
+    }
+
+    @Test
+    public void testClassifyAllMatchesClassify() throws ClassifierException {
+        BayesianClassifier classifier = new BayesianClassifier(new MultiCategoryWordsDataSource());
+        teach(classifier, "spam");
+        // the same sample taught the other way round
+        for (String ham : HAM) {
+            classifier.teachMatch("ham", ham);
+        }
+        for (String spam : SPAM) {
+            classifier.teachNonMatch("ham", spam);
+        }
+        classifier.teachMatch("kernel", "kernel build");
+
+        StringBuilder longInput = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            longInput.append(SPAM[i % SPAM.length]).append(' ').append(HAM[i % HAM.length]).append(' ');
+        }
+        String[] inputs = INPUTS.clone();
+        inputs[inputs.length - 1] = longInput.toString();
+        for (String input : inputs) {
+            Map<String, Double> scores = classifier.classifyAll(input);
+            assertEquals(3, scores.size());
+            for (Map.Entry<String, Double> score : scores.entrySet()) {
+                assertEquals(input, classifier.classify(score.getKey(), input), score.getValue(), DELTA);
+            }
+            assertEquals(scores, classifier.classifyAll(new MessageAnalysis(input)));
+        }
+    }
+
+    @Test
+    public void testClassifyAllDefaultCategory() throws ClassifierException {
+        BayesianClassifier classifier = new BayesianClassifier();
+        teach(classifier, ICategorisedClassifier.DEFAULT_CATEGORY);
+        Map<String, Double> scores = classifier.classifyAll("free money now");
+        assertEquals(1, scores.size());
+        assertEquals(classifier.classify("free money now"), scores.get(ICategorisedClassifier.DEFAULT_CATEGORY), DELTA);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testClassifyAllUnlistableCategories() throws ClassifierException {
+        new BayesianClassifier(new CountMinWordsDataSource(1024, 4, 0, Long.MAX_VALUE)).classifyAll("free money now");
+    }
+
+    @Test
+    public void testCombineRestartsAfterUnderflow() {
+        assertEquals(0.5, BayesianClassifier.combine(0, 0.5), 0);
+        assertEquals(0.25, BayesianClassifier.combine(0.5, 0.5), 0);
+        assertEquals(0.1, BayesianClassifier.combine(Double.MIN_VALUE * 0.1, 0.1), 0);
+    }
+}
@@ -0,0 +1,107 @@
+package net.sf.classifier4J.bayesian;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CountMinWordsDataSourceTest {
+
+    @Test
+    public void testCounts() {
+        CountMinWordsDataSource ds = new CountMinWordsDataSource(1 << 16, 4, 0, Long.MAX_VALUE);
+        ds.addMatch("spam");
+        ds.addMatch("spam");
+        ds.addNonMatch("spam");
+        ds.addNonMatch("ham");
+
+        WordProbability wp = ds.getWordProbability("spam");
+        assertEquals("spam", wp.getWord());
+        assertEquals(2, wp.getMatchingCount());
+        assertEquals(1, wp.getNonMatchingCount());
+        assertEquals(0, ds.getWordProbability("ham").getMatchingCount());
+        assertNull(ds.getWordProbability("unknown"));
+        assertEquals(2, ds.getTermCount());
+    }
+
+    @Test
+    public void testCategories() {
+        CountMinWordsDataSource ds = new CountMinWordsDataSource(1 << 16, 4, 0, Long.MAX_VALUE);
+        ds.addMatch("spam", "word");
+        ds.addNonMatch("german", "word");
+
+        WordProbability wp = ds.getWordProbability("spam", "word");
+        assertEquals("spam", wp.getCategory());
+        assertEquals(1, wp.getMatchingCount());
+        assertEquals(0, wp.getNonMatchingCount());
+        assertEquals(1, ds.getWordProbability("german", "word").getNonMatchingCount());
+        assertNull(ds.getWordProbability("word"));
+        assertEquals(2, ds.getCategoryCount());
+    }
+
+    @Test
+    public void testNeverUnderestimates() {
+        // far more words than counters, so most of them share
+        CountMinWordsDataSource ds = new CountMinWordsDataSource(64, 3, 0, Long.MAX_VALUE);
+        Random random = new Random(42);
+        int[] matches = new int[2000];
+        int[] nonMatches = new int[matches.length];
+        for (int i = 0; i < 20000; i++) {
+            int word = random.nextInt(matches.length);
+            if (random.nextBoolean()) {
+                ds.addMatch("word" + word);
+                matches[word]++;
+            } else {
+                ds.addNonMatch("word" + word);
+                nonMatches[word]++;
+            }
+        }
+        for (int i = 0; i < matches.length; i++) {
+            WordProbability wp = ds.getWordProbability("word" + i);
+            if (matches[i] + nonMatches[i] > 0) {
+                assertTrue(wp.getMatchingCount() >= matches[i]);
+                assertTrue(wp.getNonMatchingCount() >= nonMatches[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testHeavyHittersAreExact() {
+        CountMinWordsDataSource ds = new CountMinWordsDataSource(64, 3, 1, 100);
+        for (int i = 0; i < 100; i++) {
+            ds.addMatch("frequent");
+        }
+        // words sharing the counters of frequent no longer raise its count, nor it theirs
+        for (int i = 0; i < 10000; i++) {
+            ds.addMatch("rare" + i);
+        }
+        for (int i = 0; i < 50; i++) {
+            ds.addNonMatch("frequent");
+        }
+        WordProbability wp = ds.getWordProbability("frequent");
+        assertEquals(100, wp.getMatchingCount());
+        assertEquals(50, wp.getNonMatchingCount());
+    }
+
+    @Test
+    public void testForErrorBounds() {
+        CountMinWordsDataSource ds = CountMinWordsDataSource.forErrorBounds(0.001, 0.01, 0, Long.MAX_VALUE);
+        assertTrue(ds.getEpsilon() <= 0.001);
+        assertTrue(ds.getDelta() <= 0.01);
+    }
+
+    @Test
+    public void testForMemory() {
+        CountMinWordsDataSource ds = CountMinWordsDataSource.forMemory(1 << 20, 4, 0, Long.MAX_VALUE);
+        long bytes = ds.getEstimatedBytes();
+        assertTrue(bytes > (1 << 20) * 0.9 && bytes < (1 << 20) * 1.1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidSize() {
+        new CountMinWordsDataSource(0, 4, 0, Long.MAX_VALUE);
+    }
+}
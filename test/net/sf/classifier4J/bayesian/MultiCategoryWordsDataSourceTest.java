@@ -0,0 +1,75 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.ICategorisedClassifier;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class MultiCategoryWordsDataSourceTest {
+
+    @Test
+    public void testCategories() {
+        MultiCategoryWordsDataSource ds = new MultiCategoryWordsDataSource();
+        ds.addMatch("spam", "free");
+        ds.addNonMatch("german", "free");
+        ds.addMatch("spam", "money");
+        assertArrayEquals(new String[]{"spam", "german"}, ds.getCategories());
+        assertEquals(0, ds.getCategoryIndex("spam"));
+        assertEquals(1, ds.getCategoryIndex("german"));
+        assertEquals(-1, ds.getCategoryIndex(ICategorisedClassifier.DEFAULT_CATEGORY));
+        assertEquals(2, ds.getCategoryCount());
+        assertEquals(2, ds.getTermCount());
+    }
+
+    @Test
+    public void testCounts() {
+        MultiCategoryWordsDataSource ds = new MultiCategoryWordsDataSource();
+        ds.addMatch("spam", "free");
+        ds.addMatch("spam", "free");
+        ds.addNonMatch("spam", "free");
+        ds.addNonMatch("german", "free");
+        // money was taught before german existed, its vector is shorter
+        ds.addMatch("spam", "money");
+        ds.addMatch("spam", "money");
+        assertArrayEquals(new int[]{2, 1, 0, 1}, ds.getCounts("free"));
+        assertNull(ds.getCounts("unknown"));
+
+        WordProbability wp = ds.getWordProbability("spam", "free");
+        assertEquals("spam", wp.getCategory());
+        assertEquals(2, wp.getMatchingCount());
+        assertEquals(1, wp.getNonMatchingCount());
+        assertEquals(0, ds.getWordProbability("german", "free").getMatchingCount());
+        assertNull(ds.getWordProbability("german", "money"));
+        assertNull(ds.getWordProbability("unknown", "free"));
+        assertNull(ds.getWordProbability("free"));
+    }
+
+    @Test
+    public void testGrowsVectors() {
+        MultiCategoryWordsDataSource ds = new MultiCategoryWordsDataSource();
+        ds.addMatch("a", "word");
+        ds.addMatch("b", "other");
+        ds.addMatch("c", "other");
+        assertEquals(2, ds.getCounts("word").length);
+        ds.addNonMatch("c", "word");
+        assertArrayEquals(new int[]{1, 0, 0, 0, 0, 1}, ds.getCounts("word"));
+    }
+
+    @Test
+    public void testProbabilityMatchesWordProbability() {
+        MultiCategoryWordsDataSource ds = new MultiCategoryWordsDataSource();
+        for (int i = 0; i < 3; i++) {
+            ds.addMatch("spam", "free");
+        }
+        ds.addNonMatch("spam", "free");
+        ds.addNonMatch("german", "money");
+
+        int[] counts = ds.getCounts("free");
+        assertEquals(new WordProbability("free", 3, 1).getProbability(), MultiCategoryWordsDataSource.getProbability(counts, 0), 0);
+        assertEquals(-1, MultiCategoryWordsDataSource.getProbability(counts, 1), 0);
+        assertEquals(-1, MultiCategoryWordsDataSource.getProbability(counts, 5), 0);
+        assertEquals(new WordProbability("money", 0, 1).getProbability(), MultiCategoryWordsDataSource.getProbability(ds.getCounts("money"), 1), 0);
+    }
+}
@@ -0,0 +1,121 @@
+package net.sf.classifier4J.bayesian;
+
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.MessageAnalysis;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MultinomialBayesianClassifierTest {
+
+    private static final double DELTA = 1e-6;
+
+    private static MultinomialBayesianClassifier classifier() {
+        return new MultinomialBayesianClassifier(new FeatureHasher(20, new String[0]));
+    }
+
+    private static void teachSpam(MultinomialBayesianClassifier classifier) {
+        classifier.teachMatch("spam", "free money now");
+        classifier.teachMatch("spam", "cheap pills free offer");
+        classifier.teachNonMatch("spam", "the kernel build is fixed");
+        classifier.teachNonMatch("spam", "thanks for the patch");
+    }
+
+    @Test
+    public void testClassify() {
+        MultinomialBayesianClassifier classifier = classifier();
+        teachSpam(classifier);
+        assertTrue(classifier.classify("spam", "free offer") > 0.5);
+        assertTrue(classifier.classify("spam", "kernel patch") < 0.5);
+        classifier.setMatchCutoff(0.5);
+        assertTrue(classifier.isMatch("spam", "free offer"));
+        assertFalse(classifier.isMatch("spam", "kernel patch"));
+        assertEquals(IClassifier.NEUTRAL_PROBABILITY, classifier.classify("unknown", "free offer"), 0);
+    }
+
+    @Test
+    public void testPosterior() {
+        MultinomialBayesianClassifier classifier = classifier();
+        classifier.teachMatch("spam", "a b");
+        classifier.teachNonMatch("spam", "c");
+        // P(a | match) = (1 + 1) / (2 + 3), P(a | non-match) = (0 + 1) / (1 + 3), even priors
+        double match = 2d / 5 * 0.5;
+        double nonMatch = 1d / 4 * 0.5;
+        assertEquals(match / (match + nonMatch), classifier.classify("spam", "a"), DELTA);
+        // untaught words say nothing, only the priors remain
+        assertEquals(0.5, classifier.classify("spam", "d e f"), DELTA);
+        assertEquals(0.5, classifier.classify("spam", ""), DELTA);
+    }
+
+    @Test
+    public void testCategoriesAreIndependent() {
+        MultinomialBayesianClassifier classifier = classifier();
+        teachSpam(classifier);
+        String[] inputs = {"free money", "the kernel", "guten tag free"};
+        double[] before = new double[inputs.length];
+        for (int i = 0; i < inputs.length; i++) {
+            before[i] = classifier.classify("spam", inputs[i]);
+        }
+        classifier.teachMatch("german", "guten tag wie geht es");
+        classifier.teachNonMatch("german", "free money now");
+        for (int i = 0; i < inputs.length; i++) {
+            assertEquals(inputs[i], before[i], classifier.classify("spam", inputs[i]), 0);
+        }
+        assertTrue(classifier.classify("german", "guten tag free") > 0.5);
+    }
+
+    @Test
+    public void testClassifyAll() {
+        MultinomialBayesianClassifier classifier = classifier();
+        teachSpam(classifier);
+        classifier.teachMatch("german", "guten tag");
+        classifier.teachNonMatch("german", "good day");
+
+        String input = "free tag day";
+        Map<String, Double> scores = classifier.classifyAll(input);
+        assertEquals(Arrays.asList("spam", "german"), Arrays.asList(scores.keySet().toArray()));
+        for (Map.Entry<String, Double> score : scores.entrySet()) {
+            assertEquals(classifier.classify(score.getKey(), input), score.getValue(), 0);
+        }
+        assertEquals(scores, classifier.classifyAll(new MessageAnalysis(input)));
+        assertEquals(classifier.classify("spam", input), classifier.classify("spam", new MessageAnalysis(input)), 0);
+    }
+
+    @Test
+    public void testLongInputDoesNotUnderflow() {
+        MultinomialBayesianClassifier classifier = classifier();
+        teachSpam(classifier);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            input.append("free kernel offer ");
+        }
+        double score = classifier.classify("spam", input.toString());
+        assertTrue(score > 0.99);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidAlpha() {
+        new MultinomialBayesianClassifier(new FeatureHasher(20), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNullCategory() {
+        classifier().teachMatch(null, "free");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNullMessage() {
+        classifier().classify("spam", (MessageAnalysis) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClassifyAllRejectsNullMessage() {
+        classifier().classifyAll((MessageAnalysis) null);
+    }
+}
@@ -0,0 +1,127 @@
+package net.sf.classifier4J.bayesian;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SimpleWordsDataSourceTest {
+
+    private static void teach(SimpleWordsDataSource ds, String word, int matches, int nonMatches) {
+        for (int i = 0; i < matches; i++) {
+            ds.addMatch(word);
+        }
+        for (int i = 0; i < nonMatches; i++) {
+            ds.addNonMatch(word);
+        }
+    }
+
+    @Test
+    public void testAddMatchAndNonMatch() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        teach(ds, "spam", 3, 1);
+        WordProbability wp = ds.getWordProbability("spam");
+        assertEquals(3, wp.getMatchingCount());
+        assertEquals(1, wp.getNonMatchingCount());
+        assertNull(ds.getWordProbability("ham"));
+        assertEquals(1, ds.getTermCount());
+        assertEquals(1, ds.getAll().size());
+    }
+
+    @Test
+    public void testSweepRemovesRareWords() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        teach(ds, "rare", 1, 0);
+        teach(ds, "common", 4, 1);
+        assertEquals(1, ds.sweep(10, 1, 2, 0, 0));
+        assertNull(ds.getWordProbability("rare"));
+        assertNotNull(ds.getWordProbability("common"));
+        assertEquals(1, ds.getSweepCycles());
+    }
+
+    @Test
+    public void testSweepRemovesNeutralWords() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        teach(ds, "neutral", 5, 5);
+        teach(ds, "spam", 10, 0);
+        assertEquals(1, ds.sweep(10, 1, 0, 0.05, Long.MAX_VALUE));
+        assertNull(ds.getWordProbability("neutral"));
+        assertNotNull(ds.getWordProbability("spam"));
+    }
+
+    @Test
+    public void testSweepKeepsWellLearnedNeutralWords() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        teach(ds, "balanced", 1000, 1000);
+        teach(ds, "unsure", 2, 2);
+        assertEquals(1, ds.sweep(10, 1, 1, 0.02, 10));
+        WordProbability wp = ds.getWordProbability("balanced");
+        assertEquals(1000, wp.getMatchingCount());
+        assertEquals(1000, wp.getNonMatchingCount());
+        assertNull(ds.getWordProbability("unsure"));
+    }
+
+    @Test
+    public void testSweepKeepsFixedProbabilities() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        ds.setWordProbability(new WordProbability("fixed", 0.5));
+        assertEquals(0, ds.sweep(10, 0, 1, 1, Long.MAX_VALUE));
+        assertEquals(0.5, ds.getWordProbability("fixed").getProbability(), 0);
+    }
+
+    @Test
+    public void testSweepResumesAcrossBatches() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        for (int i = 0; i < 10; i++) {
+            teach(ds, "word" + i, 1, 0);
+        }
+        // a batch stops at the end of a cycle
+        for (int i = 0; i < 3; i++) {
+            ds.sweep(4, 1, 0, 0, 0);
+        }
+        assertEquals(1, ds.getSweepCycles());
+        assertEquals(10, ds.getTermCount());
+
+        assertEquals(4, ds.sweep(4, 1, 2, 0, 0));
+        assertEquals(6, ds.getTermCount());
+    }
+
+    @Test
+    public void testSweepDecayIsUnbiased() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        int words = 20000;
+        for (int i = 0; i < words; i++) {
+            teach(ds, "word" + i, 3, 0);
+        }
+        ds.sweep(words, 0.5, 0, 0, 0);
+
+        long total = 0;
+        for (WordProbability wp : ds.getAll()) {
+            long count = wp.getMatchingCount();
+            assertTrue(count == 1 || count == 2);
+            total += count;
+        }
+        // 1.5 on average rather than always rounded one way
+        assertEquals(1.5, (double) total / words, 0.05);
+    }
+
+    @Test
+    public void testSweepDecaysSmallCounts() {
+        SimpleWordsDataSource ds = new SimpleWordsDataSource();
+        int words = 20000;
+        for (int i = 0; i < words; i++) {
+            teach(ds, "word" + i, 1, 0);
+        }
+        int removed = ds.sweep(words, 0.5, 1, 0, 0);
+        // a count of 1 survives with probability decay
+        assertEquals(0.5, (double) removed / words, 0.05);
+        assertEquals(words - removed, ds.getTermCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSweepRejectsInvalidDecay() {
+        new SimpleWordsDataSource().sweep(1, 1.5, 0, 0, 0);
+    }
+}
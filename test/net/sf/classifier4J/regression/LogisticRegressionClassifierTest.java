@@ -0,0 +1,105 @@
+package net.sf.classifier4J.regression;
+
+import net.sf.classifier4J.FeatureHasher;
+import net.sf.classifier4J.IClassifier;
+import net.sf.classifier4J.MessageAnalysis;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogisticRegressionClassifierTest {
+
+    private static final String[] SPAM = {"free money now", "cheap pills free offer", "win a free prize"};
+    private static final String[] HAM = {"the kernel build is fixed", "thanks for the patch", "which build server"};
+
+    private static void teach(LogisticRegressionClassifier classifier, int epochs) {
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (int i = 0; i < SPAM.length; i++) {
+                classifier.teachMatch("spam", SPAM[i]);
+                classifier.teachNonMatch("spam", HAM[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testLearns() {
+        LogisticRegressionClassifier classifier = new LogisticRegressionClassifier(new FeatureHasher(20));
+        teach(classifier, 20);
+        for (String spam : SPAM) {
+            assertTrue(spam, classifier.classify("spam", spam) > 0.9);
+        }
+        for (String ham : HAM) {
+            assertTrue(ham, classifier.classify("spam", ham) < 0.1);
+        }
+        assertTrue(classifier.classify("spam", "free offer") > 0.5);
+        assertTrue(classifier.classify("spam", "kernel patch") < 0.5);
+    }
+
+    @Test
+    public void testUnknownCategory() {
+        LogisticRegressionClassifier classifier = new LogisticRegressionClassifier(new FeatureHasher(20));
+        teach(classifier, 1);
+        assertEquals(IClassifier.NEUTRAL_PROBABILITY, classifier.classify("german", "free money"), 0);
+        // nothing taught in the category yet, all weights are 0
+        classifier.teach("german", new int[0], true);
+        assertTrue(classifier.classify("german", "free money") > IClassifier.NEUTRAL_PROBABILITY);
+    }
+
+    @Test
+    public void testInputs() {
+        FeatureHasher hasher = new FeatureHasher(20);
+        LogisticRegressionClassifier classifier = new LogisticRegressionClassifier(hasher);
+        teach(classifier, 5);
+        String input = "free kernel offer";
+        double score = classifier.classify("spam", input);
+        assertEquals(score, classifier.classify("spam", hasher.features(input)), 0);
+        assertEquals(score, classifier.classify("spam", new MessageAnalysis(input)), 0);
+    }
+
+    @Test
+    public void testConcurrentTeaching() throws InterruptedException {
+        final LogisticRegressionClassifier classifier = new LogisticRegressionClassifier(new FeatureHasher(20));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(() -> {
+                // each thread hashes with its own hasher
+                FeatureHasher hasher = new FeatureHasher(20);
+                for (int epoch = 0; epoch < 50; epoch++) {
+                    for (int i = 0; i < SPAM.length; i++) {
+                        classifier.teach("spam", hasher.features(SPAM[i]), true);
+                        classifier.teach("spam", hasher.features(HAM[i]), false);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < SPAM.length; i++) {
+            assertTrue(classifier.classify("spam", SPAM[i]) > 0.9);
+            assertTrue(classifier.classify("spam", HAM[i]) < 0.1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsInvalidLearningRate() {
+        new LogisticRegressionClassifier(new FeatureHasher(20), 0, LogisticRegressionClassifier.DEFAULT_REGULARISATION);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNullCategory() {
+        new LogisticRegressionClassifier(new FeatureHasher(20)).classify(null, "free");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsNullMessage() {
+        new LogisticRegressionClassifier(new FeatureHasher(20)).classify("spam", (MessageAnalysis) null);
+    }
+}
@@ -0,0 +1,77 @@
+package net.sf.classifier4J.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StopWordSetTest {
+
+    private static String randomWord(Random random) {
+        char[] word = new char[1 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    @Test
+    public void testContains() {
+        StopWordSet set = new StopWordSet(new String[]{"the", "and", "a"});
+        assertTrue(set.contains("the"));
+        assertTrue(set.contains("a"));
+        assertFalse(set.contains("th"));
+        assertFalse(set.contains("then"));
+        assertFalse(set.contains(""));
+        assertFalse(set.contains(null));
+    }
+
+    @Test
+    public void testIgnoresCase() {
+        StopWordSet set = new StopWordSet(new String[]{"The", "AND"});
+        assertTrue(set.contains("the"));
+        assertTrue(set.contains("THE"));
+        assertTrue(set.contains("And"));
+    }
+
+    @Test
+    public void testSpans() {
+        StopWordSet set = new StopWordSet(new String[]{"the", "and"});
+        String text = "cats and dogs, the end";
+        assertTrue(set.contains(text, 5, 8));
+        assertTrue(set.contains(text, 15, 18));
+        assertFalse(set.contains(text, 5, 9));
+        assertFalse(set.contains(text, 5, 5));
+    }
+
+    @Test
+    public void testSize() {
+        assertEquals(2, new StopWordSet(new String[]{"the", "THE", null, "", "and"}).size());
+        StopWordSet empty = new StopWordSet(new String[0]);
+        assertEquals(0, empty.size());
+        assertFalse(empty.contains("the"));
+    }
+
+    @Test
+    public void testMatchesHashSet() {
+        Random random = new Random(1);
+        Set<String> words = new HashSet<>();
+        while (words.size() < 10000) {
+            words.add(randomWord(random));
+        }
+        StopWordSet set = new StopWordSet(words.toArray(new String[0]));
+        assertEquals(words.size(), set.size());
+        for (String word : words) {
+            assertTrue(word, set.contains(word));
+        }
+        for (int i = 0; i < 100000; i++) {
+            String word = randomWord(random);
+            assertEquals(word, words.contains(word), set.contains(word));
+        }
+    }
+}